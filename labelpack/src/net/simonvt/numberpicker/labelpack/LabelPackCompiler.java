@@ -0,0 +1,200 @@
+/*
+ * Copyright (C) 2008 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.simonvt.numberpicker.labelpack;
+
+import java.awt.Font;
+import java.awt.font.FontRenderContext;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * Command line tool compiling a CSV file or an Android string array into a
+ * label pack to be shipped as an uncompressed asset and opened with
+ * <code>MappedLabelPack.openAsset()</code>.
+ * <p>
+ * For each text size given with <code>--size</code>, the labels are measured
+ * with a reference font and the widest ones are recorded along with the
+ * longest ones, so that the picker only needs to measure those few labels
+ * with its actual paint to size itself.
+ */
+public final class LabelPackCompiler {
+
+	/**
+	 * The default number of width candidates recorded per text size.
+	 */
+	private static final int DEFAULT_CANDIDATE_COUNT = 16;
+
+	/**
+	 * The default reference font.
+	 */
+	private static final String DEFAULT_FONT = "SansSerif";
+
+	private static final String USAGE =
+			"usage: labelpack [--array NAME] [--column N] [--header]\n"
+					+ "                 [--size PX]... [--font NAME] [--candidates N]\n"
+					+ "                 INPUT OUTPUT\n"
+					+ "\n"
+					+ "Reads the labels from the string array NAME of the resource file\n"
+					+ "INPUT if --array is given, or else from column N (default 0) of the\n"
+					+ "CSV file INPUT, and writes them to the label pack OUTPUT.\n";
+
+	/**
+	 * Returns the indices of the <code>count</code> labels with the greatest
+	 * <code>weights</code>.
+	 */
+	private static List<Integer> greatest( final float[] weights,
+			final int count ) {
+		final Integer[] indices = new Integer[ weights.length ];
+		for ( int i = 0; i < indices.length; i++ ) {
+			indices[ i ] = Integer.valueOf( i );
+		}
+		Arrays.sort( indices, new Comparator<Integer>() {
+			@Override
+			public int compare( final Integer lhs, final Integer rhs ) {
+				return Float.compare( weights[ rhs.intValue() ],
+						weights[ lhs.intValue() ] );
+			}
+		} );
+		return Arrays.asList( indices ).subList( 0,
+				Math.min( count, indices.length ) );
+	}
+
+	public static void main( final String[] args ) {
+		System.setProperty( "java.awt.headless", "true" );
+		try {
+			LabelPackCompiler.run( args );
+		} catch ( final IllegalArgumentException e ) {
+			System.err.println( "labelpack: " + e.getMessage() );
+			System.err.print( LabelPackCompiler.USAGE );
+			System.exit( 2 );
+		} catch ( final IOException e ) {
+			System.err.println( "labelpack: " + e.getMessage() );
+			System.exit( 1 );
+		}
+	}
+
+	/**
+	 * Returns the width of each label drawn with <code>font</code>.
+	 */
+	private static float[] measure( final String[] labels, final Font font ) {
+		final FontRenderContext context =
+				new FontRenderContext( null, true, true );
+		final float[] widths = new float[ labels.length ];
+		for ( int i = 0; i < labels.length; i++ ) {
+			widths[ i ] =
+					(float) font.getStringBounds( labels[ i ], context ).getWidth();
+		}
+		return widths;
+	}
+
+	private static float parseFloat( final String name, final String value ) {
+		try {
+			return Float.parseFloat( value );
+		} catch ( final NumberFormatException e ) {
+			throw new IllegalArgumentException( name + " must be a number" );
+		}
+	}
+
+	private static int parseInt( final String name, final String value ) {
+		try {
+			return Integer.parseInt( value );
+		} catch ( final NumberFormatException e ) {
+			throw new IllegalArgumentException( name + " must be a number" );
+		}
+	}
+
+	private static void run( final String[] args ) throws IOException {
+		String arrayName = null;
+		int column = 0;
+		boolean header = false;
+		final List<Float> textSizes = new ArrayList<Float>();
+		String fontName = LabelPackCompiler.DEFAULT_FONT;
+		int candidateCount = LabelPackCompiler.DEFAULT_CANDIDATE_COUNT;
+		final List<String> files = new ArrayList<String>();
+		for ( int i = 0; i < args.length; i++ ) {
+			final String arg = args[ i ];
+			if ( arg.equals( "--header" ) ) {
+				header = true;
+			} else if ( arg.startsWith( "--" ) ) {
+				if ( ( i + 1 ) == args.length ) {
+					throw new IllegalArgumentException( arg + " needs a value" );
+				}
+				final String value = args[ ++i ];
+				if ( arg.equals( "--array" ) ) {
+					arrayName = value;
+				} else if ( arg.equals( "--column" ) ) {
+					column = LabelPackCompiler.parseInt( arg, value );
+				} else if ( arg.equals( "--size" ) ) {
+					textSizes.add( Float.valueOf( LabelPackCompiler.parseFloat(
+							arg, value ) ) );
+				} else if ( arg.equals( "--font" ) ) {
+					fontName = value;
+				} else if ( arg.equals( "--candidates" ) ) {
+					candidateCount = LabelPackCompiler.parseInt( arg, value );
+				} else {
+					throw new IllegalArgumentException( "unknown option " + arg );
+				}
+			} else {
+				files.add( arg );
+			}
+		}
+		if ( files.size() != 2 ) {
+			throw new IllegalArgumentException( "expected INPUT and OUTPUT" );
+		}
+		if ( ( column < 0 ) || ( candidateCount < 1 ) ) {
+			throw new IllegalArgumentException(
+					"--column must be >= 0 and --candidates >= 1" );
+		}
+
+		final File input = new File( files.get( 0 ) );
+		final String[] labels =
+				( arrayName != null ) ? LabelSources.readStringArray( input,
+						arrayName ) : LabelSources.readCsv( input, column, header );
+
+		final float[] lengths = new float[ labels.length ];
+		for ( int i = 0; i < labels.length; i++ ) {
+			lengths[ i ] = labels[ i ].length();
+		}
+		final List<Integer> longest =
+				LabelPackCompiler.greatest( lengths, candidateCount );
+
+		final LabelPackWriter writer = new LabelPackWriter( labels );
+		final Font baseFont = new Font( fontName, Font.PLAIN, 1 );
+		for ( final Float textSize : textSizes ) {
+			final float[] widths =
+					LabelPackCompiler.measure( labels,
+							baseFont.deriveFont( textSize.floatValue() ) );
+			final TreeSet<Integer> candidates = new TreeSet<Integer>( longest );
+			candidates.addAll( LabelPackCompiler.greatest( widths, candidateCount ) );
+			final int[] indices = new int[ candidates.size() ];
+			int i = 0;
+			for ( final Integer index : candidates ) {
+				indices[ i++ ] = index.intValue();
+			}
+			writer.addWidthCandidates( textSize.floatValue(), indices );
+		}
+		writer.write( new File( files.get( 1 ) ) );
+	}
+
+	private LabelPackCompiler() {
+	}
+}
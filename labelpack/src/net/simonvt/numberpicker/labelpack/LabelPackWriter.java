@@ -0,0 +1,193 @@
+/*
+ * Copyright (C) 2008 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.simonvt.numberpicker.labelpack;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Writes version 2 label packs read by
+ * <code>net.simonvt.numberpicker.MappedLabelPack</code>. On top of the
+ * labels and their lower case copy, a version 2 pack holds:
+ * <ul>
+ * <li>the int label indices sorted by lower case label, equal labels by
+ * index,</li>
+ * <li>the int block size <code>b</code>, the int block count and the
+ * smallest label index of each block of <code>b</code> sorted indices, which
+ * together serve prefix lookups in logarithmic time,</li>
+ * <li>the int number of text sizes followed, for each, by the float text size
+ * in pixels, the int number of width candidates and the int indices of the
+ * labels that may be the widest at that size.</li>
+ * </ul>
+ * The format constants must be kept in sync with the reader.
+ */
+final class LabelPackWriter {
+
+	/**
+	 * A text size and the labels that may be the widest when drawn at it.
+	 */
+	static final class WidthCandidates {
+		final float mTextSize;
+
+		final int[] mIndices;
+
+		WidthCandidates( final float textSize, final int[] indices ) {
+			this.mTextSize = textSize;
+			this.mIndices = indices;
+		}
+	}
+
+	/**
+	 * The magic number every label pack starts with.
+	 */
+	static final int MAGIC = 0x4E504C50;
+
+	/**
+	 * The format version written.
+	 */
+	static final int VERSION = 2;
+
+	/**
+	 * The number of sorted indices summarized by each block minimum.
+	 */
+	static final int BLOCK_SIZE = 64;
+
+	/**
+	 * The labels in value order.
+	 */
+	private final String[] mLabels;
+
+	/**
+	 * The width candidates by text size.
+	 */
+	private final List<WidthCandidates> mWidthCandidates =
+			new ArrayList<WidthCandidates>();
+
+	LabelPackWriter( final String[] labels ) {
+		this.mLabels = labels;
+	}
+
+	/**
+	 * Records <code>indices</code> as the labels that may be the widest at
+	 * <code>textSize</code>.
+	 */
+	void addWidthCandidates( final float textSize, final int[] indices ) {
+		this.mWidthCandidates.add( new WidthCandidates( textSize, indices ) );
+	}
+
+	/**
+	 * Returns <code>label</code> lower cased one char at a time, the same way
+	 * the reader folds typed input.
+	 */
+	static String fold( final String label ) {
+		final char[] chars = label.toCharArray();
+		for ( int i = 0; i < chars.length; i++ ) {
+			chars[ i ] = Character.toLowerCase( chars[ i ] );
+		}
+		return new String( chars );
+	}
+
+	/**
+	 * Returns the label indices sorted by folded label, equal labels keeping
+	 * their index order.
+	 */
+	private Integer[] sortIndices( final String[] folded ) {
+		final Integer[] sorted = new Integer[ folded.length ];
+		for ( int i = 0; i < sorted.length; i++ ) {
+			sorted[ i ] = Integer.valueOf( i );
+		}
+		// The sort is stable, which keeps equal labels in index order.
+		Arrays.sort( sorted, new Comparator<Integer>() {
+			@Override
+			public int compare( final Integer lhs, final Integer rhs ) {
+				return folded[ lhs.intValue() ].compareTo( folded[ rhs.intValue() ] );
+			}
+		} );
+		return sorted;
+	}
+
+	/**
+	 * Writes the pack to <code>file</code>.
+	 */
+	void write( final File file ) throws IOException {
+		final String[] labels = this.mLabels;
+		final String[] folded = new String[ labels.length ];
+		for ( int i = 0; i < labels.length; i++ ) {
+			folded[ i ] = LabelPackWriter.fold( labels[ i ] );
+		}
+		final Integer[] sorted = this.sortIndices( folded );
+
+		final DataOutputStream out =
+				new DataOutputStream( new BufferedOutputStream(
+						new FileOutputStream( file ) ) );
+		try {
+			out.writeInt( LabelPackWriter.MAGIC );
+			out.writeInt( LabelPackWriter.VERSION );
+			out.writeInt( labels.length );
+
+			int offset = 0;
+			out.writeInt( offset );
+			for ( final String label : labels ) {
+				offset += label.length();
+				out.writeInt( offset );
+			}
+			for ( final String label : labels ) {
+				out.writeChars( label );
+			}
+			for ( final String label : folded ) {
+				out.writeChars( label );
+			}
+
+			for ( final Integer index : sorted ) {
+				out.writeInt( index.intValue() );
+			}
+			final int blockCount =
+					( ( sorted.length + LabelPackWriter.BLOCK_SIZE ) - 1 )
+							/ LabelPackWriter.BLOCK_SIZE;
+			out.writeInt( LabelPackWriter.BLOCK_SIZE );
+			out.writeInt( blockCount );
+			for ( int block = 0; block < blockCount; block++ ) {
+				final int start = block * LabelPackWriter.BLOCK_SIZE;
+				final int end =
+						Math.min( start + LabelPackWriter.BLOCK_SIZE, sorted.length );
+				int min = Integer.MAX_VALUE;
+				for ( int i = start; i < end; i++ ) {
+					min = Math.min( min, sorted[ i ].intValue() );
+				}
+				out.writeInt( min );
+			}
+
+			out.writeInt( this.mWidthCandidates.size() );
+			for ( final WidthCandidates candidates : this.mWidthCandidates ) {
+				out.writeFloat( candidates.mTextSize );
+				out.writeInt( candidates.mIndices.length );
+				for ( final int index : candidates.mIndices ) {
+					out.writeInt( index );
+				}
+			}
+		} finally {
+			out.close();
+		}
+	}
+}
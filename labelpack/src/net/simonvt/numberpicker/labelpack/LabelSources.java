@@ -0,0 +1,191 @@
+/*
+ * Copyright (C) 2008 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.simonvt.numberpicker.labelpack;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+import org.xml.sax.SAXException;
+
+/**
+ * Reads labels from CSV files and Android string array resources.
+ */
+final class LabelSources {
+
+	/**
+	 * Reads the labels of column <code>column</code> of the UTF-8 CSV file
+	 * <code>file</code>, skipping the first row if <code>header</code> is set.
+	 * Fields may be quoted with double quotes, in which case they can span
+	 * lines and contain doubled quotes.
+	 */
+	static String[] readCsv( final File file, final int column,
+			final boolean header ) throws IOException {
+		final BufferedReader reader =
+				new BufferedReader( new InputStreamReader( new FileInputStream(
+						file ), "UTF-8" ) );
+		try {
+			final List<String> labels = new ArrayList<String>();
+			final List<String> row = new ArrayList<String>();
+			final StringBuilder field = new StringBuilder();
+			boolean quoted = false;
+			boolean skipRow = header;
+			int c;
+			while ( ( c = reader.read() ) != -1 ) {
+				if ( quoted ) {
+					if ( c != '"' ) {
+						field.append( (char) c );
+						continue;
+					}
+					reader.mark( 1 );
+					if ( reader.read() == '"' ) {
+						field.append( '"' );
+					} else {
+						reader.reset();
+						quoted = false;
+					}
+				} else if ( c == '"' ) {
+					quoted = true;
+				} else if ( c == ',' ) {
+					row.add( field.toString() );
+					field.setLength( 0 );
+				} else if ( c == '\n' ) {
+					LabelSources.endRow( row, field, column, skipRow, labels );
+					skipRow = false;
+				} else if ( c != '\r' ) {
+					field.append( (char) c );
+				}
+			}
+			if ( quoted ) {
+				throw new IOException( file + ": unterminated quoted field" );
+			}
+			if ( ( field.length() > 0 ) || !row.isEmpty() ) {
+				LabelSources.endRow( row, field, column, skipRow, labels );
+			}
+			return labels.toArray( new String[ labels.size() ] );
+		} finally {
+			reader.close();
+		}
+	}
+
+	/**
+	 * Ends the current CSV row, adding its label unless the row is skipped or
+	 * blank.
+	 */
+	private static void endRow( final List<String> row,
+			final StringBuilder field, final int column, final boolean skipRow,
+			final List<String> labels ) throws IOException {
+		row.add( field.toString() );
+		field.setLength( 0 );
+		final boolean blank = ( row.size() == 1 ) && ( row.get( 0 ).length() == 0 );
+		if ( !skipRow && !blank ) {
+			if ( column >= row.size() ) {
+				throw new IOException( "row " + ( labels.size() + 1 )
+						+ " has no column " + column );
+			}
+			labels.add( row.get( column ) );
+		}
+		row.clear();
+	}
+
+	/**
+	 * Reads the items of the string array named <code>name</code> from the
+	 * Android resource file <code>file</code>.
+	 */
+	static String[] readStringArray( final File file, final String name )
+			throws IOException {
+		final Document document;
+		try {
+			document =
+					DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(
+							file );
+		} catch ( final ParserConfigurationException e ) {
+			throw new IOException( e.getMessage() );
+		} catch ( final SAXException e ) {
+			throw new IOException( file + ": " + e.getMessage() );
+		}
+		final NodeList arrays = document.getElementsByTagName( "string-array" );
+		for ( int i = 0; i < arrays.getLength(); i++ ) {
+			final Element array = (Element) arrays.item( i );
+			if ( !name.equals( array.getAttribute( "name" ) ) ) {
+				continue;
+			}
+			final NodeList items = array.getElementsByTagName( "item" );
+			final String[] labels = new String[ items.getLength() ];
+			for ( int j = 0; j < labels.length; j++ ) {
+				labels[ j ] = LabelSources.unescape( items.item( j ).getTextContent() );
+			}
+			return labels;
+		}
+		throw new IOException( file + ": no string-array named " + name );
+	}
+
+	/**
+	 * Resolves the quoting and backslash escapes of an Android string
+	 * resource.
+	 */
+	static String unescape( final String value ) {
+		String text = value.trim();
+		if ( ( text.length() >= 2 ) && text.startsWith( "\"" )
+				&& text.endsWith( "\"" ) ) {
+			text = text.substring( 1, text.length() - 1 );
+		}
+		final StringBuilder result = new StringBuilder( text.length() );
+		for ( int i = 0; i < text.length(); i++ ) {
+			final char c = text.charAt( i );
+			if ( ( c != '\\' ) || ( i == ( text.length() - 1 ) ) ) {
+				result.append( c );
+				continue;
+			}
+			final char escaped = text.charAt( ++i );
+			switch ( escaped ) {
+				case 'n':
+					result.append( '\n' );
+					break;
+				case 't':
+					result.append( '\t' );
+					break;
+				case 'u':
+					if ( ( i + 4 ) < text.length() ) {
+						result.append( (char) Integer.parseInt(
+								text.substring( i + 1, i + 5 ), 16 ) );
+						i += 4;
+						break;
+					}
+					result.append( escaped );
+					break;
+				default:
+					result.append( escaped );
+					break;
+			}
+		}
+		return result.toString();
+	}
+
+	private LabelSources() {
+	}
+}
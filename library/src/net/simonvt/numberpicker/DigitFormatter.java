@@ -0,0 +1,287 @@
+/*
+ * Copyright (C) 2008 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.simonvt.numberpicker;
+
+import java.text.DecimalFormatSymbols;
+import java.util.Locale;
+
+/**
+ * Renders and parses integers with the digits of a given locale without
+ * going through {@link java.util.Formatter} or {@link Long#parseLong(String)}.
+ * The characters are written right to left into a reused buffer so that
+ * producing a label does not create temporary objects. Integers may be taken
+ * as fixed-point decimals with a given number of fraction digits. This class
+ * is not thread safe.
+ */
+final class DigitFormatter {
+
+	/**
+	 * The size of the render buffer, large enough for any long with a sign,
+	 * a decimal separator and padding.
+	 */
+	private static final int BUFFER_SIZE = 48;
+
+	/**
+	 * The max number of fraction digits.
+	 */
+	static final int MAX_SCALE = 18;
+
+	/**
+	 * The buffer the digits are rendered into.
+	 */
+	private final char[] mBuffer = new char[ DigitFormatter.BUFFER_SIZE ];
+
+	/**
+	 * The index in {@link #mBuffer} of the first rendered character.
+	 */
+	private int mStart;
+
+	/**
+	 * The locale whose symbols are currently used.
+	 */
+	private Locale mLocale;
+
+	/**
+	 * The zero digit of the locale.
+	 */
+	private char mZeroDigit;
+
+	/**
+	 * The minus sign of the locale.
+	 */
+	private char mMinusSign;
+
+	/**
+	 * The grouping separator of the locale.
+	 */
+	private char mGroupingSeparator;
+
+	/**
+	 * The decimal separator of the locale.
+	 */
+	private char mDecimalSeparator;
+
+	/**
+	 * Returns the negative magnitude <code>result</code> with
+	 * <code>digit</code> appended, checking that it stays above
+	 * <code>limit</code>.
+	 */
+	private static long appendDigit( final long result, final int digit,
+			final long limit ) {
+		if ( ( result < ( limit / 10 ) )
+				|| ( ( result * 10 ) < ( limit + digit ) ) ) {
+			throw new NumberFormatException( "number out of range" );
+		}
+		return ( result * 10 ) - digit;
+	}
+
+	DigitFormatter( final Locale locale ) {
+		this.setLocale( locale );
+	}
+
+	/**
+	 * Appends the rendered <code>value</code> to <code>out</code>.
+	 */
+	void appendTo( final long value, final StringBuilder out ) {
+		this.appendTo( value, 0, out );
+	}
+
+	/**
+	 * Appends <code>value</code> rendered with <code>scale</code> fraction
+	 * digits to <code>out</code>.
+	 */
+	void appendTo( final long value, final int scale, final StringBuilder out ) {
+		final int length = this.render( value, 0, scale );
+		out.append( this.mBuffer, this.mStart, length );
+	}
+
+	/**
+	 * Returns the rendered <code>value</code> as a string.
+	 */
+	String format( final long value ) {
+		return this.format( value, 0 );
+	}
+
+	/**
+	 * Returns <code>value</code> rendered with <code>scale</code> fraction
+	 * digits as a string.
+	 */
+	String format( final long value, final int scale ) {
+		final int length = this.render( value, 0, scale );
+		return new String( this.mBuffer, this.mStart, length );
+	}
+
+	/**
+	 * Returns the buffer holding the characters of the last render.
+	 */
+	char[] getBuffer() {
+		return this.mBuffer;
+	}
+
+	char getDecimalSeparator() {
+		return this.mDecimalSeparator;
+	}
+
+	char getGroupingSeparator() {
+		return this.mGroupingSeparator;
+	}
+
+	Locale getLocale() {
+		return this.mLocale;
+	}
+
+	char getMinusSign() {
+		return this.mMinusSign;
+	}
+
+	/**
+	 * Returns the index of the first character of the last render.
+	 */
+	int getStart() {
+		return this.mStart;
+	}
+
+	char getZeroDigit() {
+		return this.mZeroDigit;
+	}
+
+	/**
+	 * Parses the number in <code>text</code> from <code>start</code> to
+	 * <code>end</code> as a fixed-point decimal with <code>scale</code>
+	 * fraction digits, so that "1.5" is 150 for a scale of 2. Digits of any
+	 * script and the minus sign of the locale or '-' are accepted. If
+	 * <code>scale</code> is positive, the fraction starts at the decimal
+	 * separator of the locale, or at '.' when the locale does not group digits
+	 * with it, and grouping separators are rejected since a typed one is most
+	 * likely meant as a decimal separator; otherwise they are skipped.
+	 * Fraction digits beyond the scale are dropped.
+	 *
+	 * @throws NumberFormatException
+	 *             If the text is not a number or the number does not fit in
+	 *             a long.
+	 */
+	long parse( final CharSequence text, final int start, final int end,
+			final int scale ) {
+		int i = start;
+		final boolean negative =
+				( i < end )
+						&& ( ( text.charAt( i ) == '-' ) || ( text.charAt( i ) == this.mMinusSign ) );
+		if ( negative ) {
+			i++;
+		}
+		// Accumulate the negative magnitude so that Long.MIN_VALUE is parsed.
+		final long limit = negative ? Long.MIN_VALUE : -Long.MAX_VALUE;
+		long result = 0;
+		int digitCount = 0;
+		int fractionDigits = -1;
+		for ( ; i < end; i++ ) {
+			final char c = text.charAt( i );
+			final int digit = Character.digit( c, 10 );
+			if ( digit < 0 ) {
+				if ( scale <= 0 ) {
+					if ( c != this.mGroupingSeparator ) {
+						throw new NumberFormatException( "not a number" );
+					}
+				} else if ( ( fractionDigits < 0 )
+						&& ( c != this.mGroupingSeparator )
+						&& ( ( c == this.mDecimalSeparator ) || ( c == '.' ) ) ) {
+					fractionDigits = 0;
+				} else {
+					throw new NumberFormatException( "not a number" );
+				}
+				continue;
+			}
+			digitCount++;
+			if ( fractionDigits == scale ) {
+				continue;
+			} else if ( fractionDigits >= 0 ) {
+				fractionDigits++;
+			}
+			result = DigitFormatter.appendDigit( result, digit, limit );
+		}
+		if ( digitCount == 0 ) {
+			throw new NumberFormatException( "not a number" );
+		}
+		for ( int j = Math.max( fractionDigits, 0 ); j < scale; j++ ) {
+			result = DigitFormatter.appendDigit( result, 0, limit );
+		}
+		return negative ? result : -result;
+	}
+
+	/**
+	 * Renders <code>value</code> into the buffer, padding it with zero digits
+	 * up to <code>minWidth</code> characters (including the sign) the same way
+	 * as <code>%0Nd</code> does.
+	 *
+	 * @return The number of rendered characters.
+	 * @see #getBuffer()
+	 * @see #getStart()
+	 */
+	int render( final long value, final int minWidth ) {
+		return this.render( value, minWidth, 0 );
+	}
+
+	/**
+	 * Renders <code>value</code> as a fixed-point decimal with
+	 * <code>scale</code> fraction digits, so that 150 is "1.50" for a scale
+	 * of 2, padding it with zero digits up to <code>minWidth</code>
+	 * characters.
+	 *
+	 * @return The number of rendered characters.
+	 * @see #render(long, int)
+	 */
+	int render( final long value, final int minWidth, final int scale ) {
+		final char[] buffer = this.mBuffer;
+		final boolean negative = value < 0;
+		// Work with the negative magnitude so that Long.MIN_VALUE is handled.
+		long remaining = negative ? value : -value;
+		int position = DigitFormatter.BUFFER_SIZE;
+		int digitCount = 0;
+		do {
+			if ( ( digitCount == scale ) && ( scale > 0 ) ) {
+				buffer[ --position ] = this.mDecimalSeparator;
+			}
+			final int digit = (int) -( remaining % 10 );
+			buffer[ --position ] = (char) ( this.mZeroDigit + digit );
+			remaining /= 10;
+			digitCount++;
+		} while ( ( remaining != 0 ) || ( digitCount <= scale ) );
+		final int signWidth = negative ? 1 : 0;
+		final int maxWidth = DigitFormatter.BUFFER_SIZE - signWidth;
+		while ( ( ( DigitFormatter.BUFFER_SIZE - position ) + signWidth ) < Math.min(
+				minWidth, maxWidth ) ) {
+			buffer[ --position ] = this.mZeroDigit;
+		}
+		if ( negative ) {
+			buffer[ --position ] = this.mMinusSign;
+		}
+		this.mStart = position;
+		return DigitFormatter.BUFFER_SIZE - position;
+	}
+
+	/**
+	 * Reloads the symbols used for rendering from <code>locale</code>.
+	 */
+	void setLocale( final Locale locale ) {
+		final DecimalFormatSymbols symbols = new DecimalFormatSymbols( locale );
+		this.mLocale = locale;
+		this.mZeroDigit = symbols.getZeroDigit();
+		this.mMinusSign = symbols.getMinusSign();
+		this.mGroupingSeparator = symbols.getGroupingSeparator();
+		this.mDecimalSeparator = symbols.getDecimalSeparator();
+	}
+}
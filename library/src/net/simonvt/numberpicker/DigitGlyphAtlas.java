@@ -0,0 +1,241 @@
+/*
+ * Copyright (C) 2008 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.simonvt.numberpicker;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.Paint.Align;
+import android.graphics.Rect;
+import android.graphics.RectF;
+import android.graphics.Typeface;
+
+/**
+ * The digits, minus sign, grouping and decimal separators of a locale
+ * pre-rendered into an alpha bitmap, from which numbers are drawn glyph by
+ * glyph at cached advances. Drawing a number this way goes through neither
+ * text layout nor strings. The bitmap only holds coverage, the color and
+ * alpha are taken from the paint at draw time, so an atlas only depends on
+ * the text size, typeface and locale. Kerning is not applied, which matches
+ * the tabular digits of most fonts.
+ */
+final class DigitGlyphAtlas {
+
+	/**
+	 * The number of digits.
+	 */
+	private static final int DIGIT_COUNT = 10;
+
+	/**
+	 * The number of glyphs: the digits, the minus sign, the grouping separator
+	 * and the decimal separator.
+	 */
+	private static final int GLYPH_COUNT = DigitGlyphAtlas.DIGIT_COUNT + 3;
+
+	/**
+	 * The room in pixels left around each glyph for parts drawn outside of
+	 * its advance.
+	 */
+	private static final int PADDING = 2;
+
+	/**
+	 * The characters of the glyphs, digits first.
+	 */
+	private final char[] mGlyphs = new char[ DigitGlyphAtlas.GLYPH_COUNT ];
+
+	/**
+	 * The advance of each glyph.
+	 */
+	private final float[] mAdvances = new float[ DigitGlyphAtlas.GLYPH_COUNT ];
+
+	/**
+	 * The rendered glyphs, one cell each.
+	 */
+	private Bitmap mBitmap;
+
+	/**
+	 * The width of a glyph cell.
+	 */
+	private int mCellWidth;
+
+	/**
+	 * The height of a glyph cell.
+	 */
+	private int mCellHeight;
+
+	/**
+	 * The baseline of the glyphs within a cell.
+	 */
+	private int mBaseline;
+
+	/**
+	 * The text size the glyphs were rendered at.
+	 */
+	private float mTextSize = -1;
+
+	/**
+	 * The typeface the glyphs were rendered with.
+	 */
+	private Typeface mTypeface;
+
+	/**
+	 * The cell of the glyph being drawn.
+	 */
+	private final Rect mSource = new Rect();
+
+	/**
+	 * The destination of the glyph being drawn.
+	 */
+	private final RectF mTarget = new RectF();
+
+	/**
+	 * Renders the glyphs of <code>digits</code> with the text size and
+	 * typeface of <code>paint</code>, replacing any previous rendering.
+	 */
+	void build( final Paint paint, final DigitFormatter digits ) {
+		final char zeroDigit = digits.getZeroDigit();
+		for ( int i = 0; i < DigitGlyphAtlas.DIGIT_COUNT; i++ ) {
+			this.mGlyphs[ i ] = (char) ( zeroDigit + i );
+		}
+		this.mGlyphs[ DigitGlyphAtlas.DIGIT_COUNT ] = digits.getMinusSign();
+		this.mGlyphs[ DigitGlyphAtlas.DIGIT_COUNT + 1 ] =
+				digits.getGroupingSeparator();
+		this.mGlyphs[ DigitGlyphAtlas.DIGIT_COUNT + 2 ] =
+				digits.getDecimalSeparator();
+
+		final Paint glyphPaint = new Paint( paint );
+		glyphPaint.setTextAlign( Align.LEFT );
+		glyphPaint.setColor( Color.BLACK );
+		float maxAdvance = 0;
+		for ( int i = 0; i < DigitGlyphAtlas.GLYPH_COUNT; i++ ) {
+			this.mAdvances[ i ] = glyphPaint.measureText( this.mGlyphs, i, 1 );
+			maxAdvance = Math.max( maxAdvance, this.mAdvances[ i ] );
+		}
+		final Paint.FontMetrics metrics = glyphPaint.getFontMetrics();
+		this.mCellWidth =
+				(int) Math.ceil( maxAdvance ) + ( 2 * DigitGlyphAtlas.PADDING );
+		this.mBaseline =
+				DigitGlyphAtlas.PADDING + (int) Math.ceil( -metrics.ascent );
+		this.mCellHeight =
+				this.mBaseline + (int) Math.ceil( metrics.descent )
+						+ DigitGlyphAtlas.PADDING;
+
+		this.recycle();
+		this.mBitmap =
+				Bitmap.createBitmap( this.mCellWidth * DigitGlyphAtlas.GLYPH_COUNT,
+						this.mCellHeight, Bitmap.Config.ALPHA_8 );
+		final Canvas canvas = new Canvas( this.mBitmap );
+		for ( int i = 0; i < DigitGlyphAtlas.GLYPH_COUNT; i++ ) {
+			canvas.drawText( this.mGlyphs, i, 1, ( i * this.mCellWidth )
+					+ DigitGlyphAtlas.PADDING, this.mBaseline, glyphPaint );
+		}
+		this.mTextSize = paint.getTextSize();
+		this.mTypeface = paint.getTypeface();
+	}
+
+	/**
+	 * Draws <code>length</code> chars of <code>chars</code> from
+	 * <code>start</code> on <code>canvas</code> the same way
+	 * {@link Canvas#drawText(char[], int, int, float, float, Paint)} would,
+	 * using the color, alpha and text alignment of <code>paint</code>.
+	 *
+	 * @return Whether the text was drawn, which is not the case if it has
+	 *         chars without a glyph.
+	 */
+	boolean draw( final Canvas canvas, final char[] chars, final int start,
+			final int length, final float x, final float y, final Paint paint ) {
+		final float width = this.measure( chars, start, length );
+		if ( width < 0 ) {
+			return false;
+		}
+		float left = x;
+		if ( paint.getTextAlign() == Align.CENTER ) {
+			left -= width / 2;
+		} else if ( paint.getTextAlign() == Align.RIGHT ) {
+			left -= width;
+		}
+		final float top = y - this.mBaseline;
+		for ( int i = start; i < ( start + length ); i++ ) {
+			final int glyph = this.indexOf( chars[ i ] );
+			final int cellLeft = glyph * this.mCellWidth;
+			this.mSource.set( cellLeft, 0, cellLeft + this.mCellWidth,
+					this.mCellHeight );
+			this.mTarget.set( left - DigitGlyphAtlas.PADDING, top, ( left - DigitGlyphAtlas.PADDING )
+					+ this.mCellWidth, top + this.mCellHeight );
+			canvas.drawBitmap( this.mBitmap, this.mSource, this.mTarget, paint );
+			left += this.mAdvances[ glyph ];
+		}
+		return true;
+	}
+
+	/**
+	 * Returns the glyph of <code>c</code>, or -1 if there is none.
+	 */
+	private int indexOf( final char c ) {
+		final int digit = c - this.mGlyphs[ 0 ];
+		if ( ( digit >= 0 ) && ( digit < DigitGlyphAtlas.DIGIT_COUNT ) ) {
+			return digit;
+		}
+		for ( int i = DigitGlyphAtlas.DIGIT_COUNT; i < DigitGlyphAtlas.GLYPH_COUNT; i++ ) {
+			if ( this.mGlyphs[ i ] == c ) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Returns whether the glyphs are rendered for the text size and typeface
+	 * of <code>paint</code> and the symbols of <code>digits</code>.
+	 */
+	boolean isValidFor( final Paint paint, final DigitFormatter digits ) {
+		return ( this.mBitmap != null )
+				&& ( this.mTextSize == paint.getTextSize() )
+				&& ( this.mTypeface == paint.getTypeface() )
+				&& ( this.mGlyphs[ 0 ] == digits.getZeroDigit() )
+				&& ( this.mGlyphs[ DigitGlyphAtlas.DIGIT_COUNT ] == digits.getMinusSign() )
+				&& ( this.mGlyphs[ DigitGlyphAtlas.DIGIT_COUNT + 1 ] == digits.getGroupingSeparator() )
+				&& ( this.mGlyphs[ DigitGlyphAtlas.DIGIT_COUNT + 2 ] == digits.getDecimalSeparator() );
+	}
+
+	/**
+	 * Returns the width of <code>length</code> chars of <code>chars</code>
+	 * from <code>start</code>, or -1 if some of them have no glyph.
+	 */
+	float measure( final char[] chars, final int start, final int length ) {
+		float width = 0;
+		for ( int i = start; i < ( start + length ); i++ ) {
+			final int glyph = this.indexOf( chars[ i ] );
+			if ( glyph < 0 ) {
+				return -1;
+			}
+			width += this.mAdvances[ glyph ];
+		}
+		return width;
+	}
+
+	/**
+	 * Releases the bitmap. The atlas must be built again before drawing.
+	 */
+	void recycle() {
+		if ( this.mBitmap != null ) {
+			this.mBitmap.recycle();
+			this.mBitmap = null;
+		}
+	}
+}
@@ -0,0 +1,377 @@
+/*
+ * Copyright (C) 2008 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.simonvt.numberpicker;
+
+/**
+ * Model of the motion of a fling, from its initial velocity to rest. Every
+ * quantity is given in closed form so that the final position and the
+ * duration of a fling are known as soon as it starts, which lets a scroller
+ * land it on a chosen distance and lets the picker prepare the labels around
+ * where it ends. Velocities are in pixels per second, distances in pixels
+ * and times in milliseconds, all signed along the direction of the fling.
+ * Implementations must be stateless.
+ */
+public interface FlingPhysics {
+
+	/**
+	 * Deceleration along the spline of the platform scroller, the default.
+	 */
+	public static final FlingPhysics SPLINE = new FlingPhysics.Spline();
+
+	/**
+	 * Exponential decay of the velocity with the default deceleration rate.
+	 */
+	public static final FlingPhysics EXPONENTIAL =
+			new FlingPhysics.Exponential( Exponential.DEFAULT_DECELERATION_RATE );
+
+	/**
+	 * Critically damped spring with the default stiffness.
+	 */
+	public static final FlingPhysics SPRING = new FlingPhysics.Spring(
+			Spring.DEFAULT_STIFFNESS );
+
+	/**
+	 * Returns the distance a fling started at <code>velocity</code> travels
+	 * before it comes to rest.
+	 */
+	public float getDistance( float velocity );
+
+	/**
+	 * Returns how long a fling started at <code>velocity</code> takes to
+	 * travel <code>distance</code>, which is the distance returned by
+	 * {@link #getDistance(float)} or a distance close to it the fling is
+	 * made to land on.
+	 */
+	public int getDuration( float velocity, float distance );
+
+	/**
+	 * Returns how far a fling started at <code>velocity</code> and landing
+	 * on <code>distance</code> has travelled after <code>time</code>.
+	 */
+	public float getOffset( float velocity, float distance, float time );
+
+	/**
+	 * Returns the velocity after <code>time</code> of a fling started at
+	 * <code>velocity</code> and landing on <code>distance</code>.
+	 */
+	public float getVelocity( float velocity, float distance, float time );
+
+	/**
+	 * The velocity decays exponentially, the way scroll views of iOS
+	 * decelerate. The fling ends when less than half a pixel remains to be
+	 * travelled.
+	 */
+	public static final class Exponential implements FlingPhysics {
+
+		/**
+		 * The fraction of the velocity kept after each millisecond by default.
+		 */
+		public static final float DEFAULT_DECELERATION_RATE = 0.998f;
+
+		/**
+		 * The distance left when the fling ends.
+		 */
+		private static final float REST_DISTANCE = 0.5f;
+
+		/**
+		 * The time constant of the decay.
+		 */
+		private final float mTimeConstant;
+
+		/**
+		 * @param decelerationRate
+		 *            The fraction of the velocity kept after each
+		 *            millisecond, greater than 0 and less than 1.
+		 */
+		public Exponential( final float decelerationRate ) {
+			if ( ( decelerationRate <= 0 ) || ( decelerationRate >= 1 ) ) {
+				throw new IllegalArgumentException(
+						"decelerationRate must be > 0 and < 1" );
+			}
+			this.mTimeConstant = (float) ( -1 / Math.log( decelerationRate ) );
+		}
+
+		@Override
+		public float getDistance( final float velocity ) {
+			return ( velocity * this.mTimeConstant ) / 1000;
+		}
+
+		@Override
+		public int getDuration( final float velocity, final float distance ) {
+			final float ratio = Math.abs( distance ) / Exponential.REST_DISTANCE;
+			if ( ratio <= 1 ) {
+				return 0;
+			}
+			return (int) Math.ceil( this.mTimeConstant * Math.log( ratio ) );
+		}
+
+		@Override
+		public float getOffset( final float velocity, final float distance,
+				final float time ) {
+			return distance
+					* (float) ( 1 - Math.exp( -time / this.mTimeConstant ) );
+		}
+
+		@Override
+		public float getVelocity( final float velocity, final float distance,
+				final float time ) {
+			return ( ( distance * 1000 ) / this.mTimeConstant )
+					* (float) Math.exp( -time / this.mTimeConstant );
+		}
+	}
+
+	/**
+	 * The deceleration of the platform scroller: the distance and duration
+	 * follow from the velocity by a power law and the position is
+	 * interpolated along a precomputed spline.
+	 */
+	public static final class Spline implements FlingPhysics {
+
+		private static final float DECELERATION_RATE =
+				(float) ( Math.log( 0.75 ) / Math.log( 0.9 ) );
+
+		/**
+		 * The velocity scale in pixels per second.
+		 */
+		private static final float ALPHA = 800;
+
+		/**
+		 * Tension at start: (0.4 * total T, 1.0 * Distance).
+		 */
+		private static final float START_TENSION = 0.4f;
+
+		private static final float END_TENSION = 1.0f - Spline.START_TENSION;
+
+		private static final int NB_SAMPLES = 100;
+
+		/**
+		 * The fraction of the distance travelled at each sampled fraction of
+		 * the duration.
+		 */
+		private static final float[] SPLINE = new float[ Spline.NB_SAMPLES + 1 ];
+
+		static {
+			float xMin = 0.0f;
+			for ( int i = 0; i <= Spline.NB_SAMPLES; i++ ) {
+				final float t = (float) i / Spline.NB_SAMPLES;
+				float xMax = 1.0f;
+				float x, tx, coef;
+				while ( true ) {
+					x = xMin + ( ( xMax - xMin ) / 2.0f );
+					coef = 3.0f * x * ( 1.0f - x );
+					tx =
+							( coef * ( ( ( 1.0f - x ) * Spline.START_TENSION ) + ( x * Spline.END_TENSION ) ) )
+									+ ( x * x * x );
+					if ( Math.abs( tx - t ) < 1E-5 ) {
+						break;
+					}
+					if ( tx > t ) {
+						xMax = x;
+					} else {
+						xMin = x;
+					}
+				}
+				Spline.SPLINE[ i ] = coef + ( x * x * x );
+			}
+			Spline.SPLINE[ Spline.NB_SAMPLES ] = 1.0f;
+		}
+
+		/**
+		 * Returns the spline sample index for the fraction <code>t</code> of
+		 * the duration.
+		 */
+		private static int index( final float t ) {
+			return Math.max( 0,
+					Math.min( (int) ( Spline.NB_SAMPLES * t ), Spline.NB_SAMPLES - 1 ) );
+		}
+
+		/**
+		 * Returns the log of the velocity scaled for the power law.
+		 */
+		private static double scaledLog( final float velocity ) {
+			return Math.log( ( Spline.START_TENSION * Math.abs( velocity ) )
+					/ Spline.ALPHA );
+		}
+
+		@Override
+		public float getDistance( final float velocity ) {
+			final double distance =
+					Spline.ALPHA
+							* Math.exp( ( Spline.DECELERATION_RATE / ( Spline.DECELERATION_RATE - 1.0 ) )
+									* Spline.scaledLog( velocity ) );
+			return (float) ( ( velocity < 0 ) ? -distance : distance );
+		}
+
+		@Override
+		public int getDuration( final float velocity, final float distance ) {
+			return (int) ( 1000.0 * Math.exp( Spline.scaledLog( velocity )
+					/ ( Spline.DECELERATION_RATE - 1.0 ) ) );
+		}
+
+		@Override
+		public float getOffset( final float velocity, final float distance,
+				final float time ) {
+			final int duration = this.getDuration( velocity, distance );
+			if ( time >= duration ) {
+				return distance;
+			}
+			final float t = time / duration;
+			final int index = Spline.index( t );
+			final float tInf = (float) index / Spline.NB_SAMPLES;
+			final float tSup = (float) ( index + 1 ) / Spline.NB_SAMPLES;
+			final float dInf = Spline.SPLINE[ index ];
+			final float dSup = Spline.SPLINE[ index + 1 ];
+			return ( dInf + ( ( ( t - tInf ) / ( tSup - tInf ) ) * ( dSup - dInf ) ) )
+					* distance;
+		}
+
+		@Override
+		public float getVelocity( final float velocity, final float distance,
+				final float time ) {
+			final int duration = this.getDuration( velocity, distance );
+			if ( time >= duration ) {
+				return 0;
+			}
+			final int index = Spline.index( time / duration );
+			final float slope =
+					( Spline.SPLINE[ index + 1 ] - Spline.SPLINE[ index ] )
+							* Spline.NB_SAMPLES;
+			return ( ( slope * distance ) / duration ) * 1000;
+		}
+	}
+
+	/**
+	 * A critically damped spring: the landing distance is projected from the
+	 * velocity as by {@link Exponential}, and a spring released with the
+	 * velocity of the fling pulls the content to it as fast as possible
+	 * without oscillating. Landing on a distance shorter than the projected
+	 * one makes the content overshoot slightly before it settles.
+	 */
+	public static final class Spring implements FlingPhysics {
+
+		/**
+		 * The default stiffness, for a unit mass.
+		 */
+		public static final float DEFAULT_STIFFNESS = 100;
+
+		/**
+		 * The distance and speed, per second, left when the fling ends.
+		 */
+		private static final float REST_DISTANCE = 0.5f;
+
+		/**
+		 * The number of halvings of the search for the duration.
+		 */
+		private static final int DURATION_ITERATIONS = 32;
+
+		/**
+		 * The angular frequency of the spring per millisecond.
+		 */
+		private final float mFrequency;
+
+		/**
+		 * The model projecting the landing distance.
+		 */
+		private final Exponential mProjection;
+
+		/**
+		 * @param stiffness
+		 *            The stiffness of the spring for a unit mass, greater than
+		 *            0. The greater, the faster the content settles.
+		 */
+		public Spring( final float stiffness ) {
+			if ( stiffness <= 0 ) {
+				throw new IllegalArgumentException( "stiffness must be > 0" );
+			}
+			this.mFrequency = (float) Math.sqrt( stiffness ) / 1000;
+			this.mProjection =
+					new Exponential( Exponential.DEFAULT_DECELERATION_RATE );
+		}
+
+		/**
+		 * Returns the distance still to travel after <code>time</code>, with
+		 * a minus sign.
+		 */
+		private float getDisplacement( final float velocity,
+				final float distance, final float time ) {
+			final float rate = this.getRate( velocity, distance );
+			return ( -distance + ( rate * time ) )
+					* (float) Math.exp( -this.mFrequency * time );
+		}
+
+		@Override
+		public float getDistance( final float velocity ) {
+			return this.mProjection.getDistance( velocity );
+		}
+
+		@Override
+		public int getDuration( final float velocity, final float distance ) {
+			// The displacement has a single extremum, after which it decays.
+			final float rate = this.getRate( velocity, distance );
+			float min = 0;
+			if ( rate != 0 ) {
+				min = Math.max( 0, ( 1 / this.mFrequency ) + ( distance / rate ) );
+			}
+			float max = min + ( 1 / this.mFrequency );
+			while ( !this.isAtRest( velocity, distance, max ) ) {
+				max *= 2;
+			}
+			for ( int i = 0; i < Spring.DURATION_ITERATIONS; i++ ) {
+				final float time = ( min + max ) / 2;
+				if ( this.isAtRest( velocity, distance, time ) ) {
+					max = time;
+				} else {
+					min = time;
+				}
+			}
+			return (int) Math.ceil( max );
+		}
+
+		@Override
+		public float getOffset( final float velocity, final float distance,
+				final float time ) {
+			return distance + this.getDisplacement( velocity, distance, time );
+		}
+
+		/**
+		 * Returns the rate, per millisecond, of the linear term of the
+		 * displacement, which follows from the initial velocity.
+		 */
+		private float getRate( final float velocity, final float distance ) {
+			return ( velocity / 1000 ) - ( this.mFrequency * distance );
+		}
+
+		@Override
+		public float getVelocity( final float velocity, final float distance,
+				final float time ) {
+			final float rate = this.getRate( velocity, distance );
+			final float displacement =
+					this.getDisplacement( velocity, distance, time );
+			return ( ( rate * (float) Math.exp( -this.mFrequency * time ) ) - ( this.mFrequency * displacement ) ) * 1000;
+		}
+
+		/**
+		 * Returns whether the content is close enough to rest at
+		 * <code>time</code> for the fling to end.
+		 */
+		private boolean isAtRest( final float velocity, final float distance,
+				final float time ) {
+			return ( Math.abs( this.getDisplacement( velocity, distance, time ) ) < Spring.REST_DISTANCE )
+					&& ( Math.abs( this.getVelocity( velocity, distance, time ) ) < ( Spring.REST_DISTANCE * 1000 ) );
+		}
+	}
+}
@@ -0,0 +1,308 @@
+/*
+ * Copyright (C) 2008 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.simonvt.numberpicker;
+
+import java.util.Arrays;
+
+/**
+ * A bounded cache of labels keyed by their value which evicts the least
+ * recently used label once full. Keys are kept in an open addressing table of
+ * primitive longs and the recency order in an array backed linked list, so
+ * neither lookups nor insertions box keys or allocate entries. This class is
+ * not thread safe.
+ */
+final class LabelCache {
+
+	/**
+	 * Marker for the absence of an entry in the recency list.
+	 */
+	private static final int NO_ENTRY = -1;
+
+	/**
+	 * The max number of labels held.
+	 */
+	private int mCapacity;
+
+	/**
+	 * The key of each entry.
+	 */
+	private long[] mKeys;
+
+	/**
+	 * The label of each entry.
+	 */
+	private String[] mValues;
+
+	/**
+	 * The entry used more recently than each entry.
+	 */
+	private int[] mPrevious;
+
+	/**
+	 * The entry used less recently than each entry, or the next free entry
+	 * for entries in the free list.
+	 */
+	private int[] mNext;
+
+	/**
+	 * The hash table mapping keys to entries, holding the entry index plus
+	 * one or zero for an empty slot.
+	 */
+	private int[] mTable;
+
+	/**
+	 * The most recently used entry.
+	 */
+	private int mHead = LabelCache.NO_ENTRY;
+
+	/**
+	 * The least recently used entry.
+	 */
+	private int mTail = LabelCache.NO_ENTRY;
+
+	/**
+	 * The first entry of the list of removed entries.
+	 */
+	private int mFreeEntry = LabelCache.NO_ENTRY;
+
+	/**
+	 * The first entry that has never been used.
+	 */
+	private int mNextUnusedEntry;
+
+	/**
+	 * The number of labels held.
+	 */
+	private int mSize;
+
+	/**
+	 * The number of lookups that found a label.
+	 */
+	private long mHitCount;
+
+	/**
+	 * The number of lookups that did not find a label.
+	 */
+	private long mMissCount;
+
+	LabelCache( final int capacity ) {
+		this.setCapacity( capacity );
+	}
+
+	private static int hash( final long key ) {
+		final int h = (int) ( key ^ ( key >>> 32 ) ) * 0x9E3779B9;
+		return h ^ ( h >>> 16 );
+	}
+
+	/**
+	 * Removes all labels. The hit and miss counts are kept.
+	 */
+	void clear() {
+		Arrays.fill( this.mTable, 0 );
+		Arrays.fill( this.mValues, null );
+		this.mHead = LabelCache.NO_ENTRY;
+		this.mTail = LabelCache.NO_ENTRY;
+		this.mFreeEntry = LabelCache.NO_ENTRY;
+		this.mNextUnusedEntry = 0;
+		this.mSize = 0;
+	}
+
+	/**
+	 * Empties the table slot at <code>slot</code>, shifting back the entries
+	 * probed past it so that they stay reachable.
+	 */
+	private void deleteSlot( final int slot ) {
+		final int[] table = this.mTable;
+		final int mask = table.length - 1;
+		int hole = slot;
+		int next = ( hole + 1 ) & mask;
+		while ( table[ next ] != 0 ) {
+			final int home = LabelCache.hash( this.mKeys[ table[ next ] - 1 ] )
+					& mask;
+			if ( ( ( next - home ) & mask ) >= ( ( next - hole ) & mask ) ) {
+				table[ hole ] = table[ next ];
+				hole = next;
+			}
+			next = ( next + 1 ) & mask;
+		}
+		table[ hole ] = 0;
+	}
+
+	/**
+	 * Returns the table slot holding <code>key</code>, or the empty slot it
+	 * would be inserted at.
+	 */
+	private int findSlot( final long key ) {
+		final int[] table = this.mTable;
+		final int mask = table.length - 1;
+		int slot = LabelCache.hash( key ) & mask;
+		while ( ( table[ slot ] != 0 )
+				&& ( this.mKeys[ table[ slot ] - 1 ] != key ) ) {
+			slot = ( slot + 1 ) & mask;
+		}
+		return slot;
+	}
+
+	/**
+	 * Returns the label of <code>key</code> and marks it as most recently
+	 * used, or <code>null</code> if there is none.
+	 */
+	String get( final long key ) {
+		final int entry = this.mTable[ this.findSlot( key ) ] - 1;
+		if ( entry < 0 ) {
+			this.mMissCount++;
+			return null;
+		}
+		this.mHitCount++;
+		this.moveToHead( entry );
+		return this.mValues[ entry ];
+	}
+
+	int getCapacity() {
+		return this.mCapacity;
+	}
+
+	long getHitCount() {
+		return this.mHitCount;
+	}
+
+	long getMissCount() {
+		return this.mMissCount;
+	}
+
+	private void linkAtHead( final int entry ) {
+		this.mPrevious[ entry ] = LabelCache.NO_ENTRY;
+		this.mNext[ entry ] = this.mHead;
+		if ( this.mHead != LabelCache.NO_ENTRY ) {
+			this.mPrevious[ this.mHead ] = entry;
+		}
+		this.mHead = entry;
+		if ( this.mTail == LabelCache.NO_ENTRY ) {
+			this.mTail = entry;
+		}
+	}
+
+	private void moveToHead( final int entry ) {
+		if ( entry != this.mHead ) {
+			this.unlink( entry );
+			this.linkAtHead( entry );
+		}
+	}
+
+	/**
+	 * Caches <code>value</code> as the label of <code>key</code>, evicting
+	 * the least recently used label if the cache is full.
+	 */
+	void put( final long key, final String value ) {
+		int slot = this.findSlot( key );
+		int entry = this.mTable[ slot ] - 1;
+		if ( entry >= 0 ) {
+			this.mValues[ entry ] = value;
+			this.moveToHead( entry );
+			return;
+		}
+		if ( this.mSize == this.mCapacity ) {
+			this.removeEntry( this.mTail );
+			slot = this.findSlot( key );
+		}
+		if ( this.mFreeEntry != LabelCache.NO_ENTRY ) {
+			entry = this.mFreeEntry;
+			this.mFreeEntry = this.mNext[ entry ];
+		} else {
+			entry = this.mNextUnusedEntry++;
+		}
+		this.mKeys[ entry ] = key;
+		this.mValues[ entry ] = value;
+		this.mTable[ slot ] = entry + 1;
+		this.linkAtHead( entry );
+		this.mSize++;
+	}
+
+	/**
+	 * Removes the label of <code>key</code> if there is one.
+	 */
+	void remove( final long key ) {
+		final int entry = this.mTable[ this.findSlot( key ) ] - 1;
+		if ( entry >= 0 ) {
+			this.removeEntry( entry );
+		}
+	}
+
+	private void removeEntry( final int entry ) {
+		this.deleteSlot( this.findSlot( this.mKeys[ entry ] ) );
+		this.unlink( entry );
+		this.mValues[ entry ] = null;
+		this.mNext[ entry ] = this.mFreeEntry;
+		this.mFreeEntry = entry;
+		this.mSize--;
+	}
+
+	/**
+	 * Removes the labels of all keys outside of <code>min</code> to
+	 * <code>max</code>.
+	 */
+	void retainRange( final long min, final long max ) {
+		int entry = this.mHead;
+		while ( entry != LabelCache.NO_ENTRY ) {
+			final int next = this.mNext[ entry ];
+			final long key = this.mKeys[ entry ];
+			if ( ( key < min ) || ( key > max ) ) {
+				this.removeEntry( entry );
+			}
+			entry = next;
+		}
+	}
+
+	/**
+	 * Sets the max number of labels held. All labels are removed.
+	 */
+	void setCapacity( final int capacity ) {
+		if ( capacity <= 0 ) {
+			throw new IllegalArgumentException( "capacity must be > 0" );
+		}
+		int tableSize = 2;
+		while ( tableSize < ( capacity * 2 ) ) {
+			tableSize <<= 1;
+		}
+		this.mCapacity = capacity;
+		this.mKeys = new long[ capacity ];
+		this.mValues = new String[ capacity ];
+		this.mPrevious = new int[ capacity ];
+		this.mNext = new int[ capacity ];
+		this.mTable = new int[ tableSize ];
+		this.clear();
+	}
+
+	int size() {
+		return this.mSize;
+	}
+
+	private void unlink( final int entry ) {
+		final int previous = this.mPrevious[ entry ];
+		final int next = this.mNext[ entry ];
+		if ( previous != LabelCache.NO_ENTRY ) {
+			this.mNext[ previous ] = next;
+		} else {
+			this.mHead = next;
+		}
+		if ( next != LabelCache.NO_ENTRY ) {
+			this.mPrevious[ next ] = previous;
+		} else {
+			this.mTail = previous;
+		}
+	}
+}
@@ -0,0 +1,207 @@
+/*
+ * Copyright (C) 2008 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.simonvt.numberpicker;
+
+import java.util.Arrays;
+
+/**
+ * A bounded window of pages of labels loaded asynchronously. Each page holds
+ * the labels of a fixed number of consecutive indices. A page is requested
+ * before it is loaded so that it is loaded only once, and once the window is
+ * full the least recently used page, loaded or not, is evicted, except for
+ * a single pinned page. Pages are few, so they are looked up by a linear
+ * scan. This class is not thread safe.
+ */
+final class LabelPager {
+
+	/**
+	 * Marker for a slot holding no page.
+	 */
+	private static final int NO_PAGE = -1;
+
+	/**
+	 * The number of labels in a page.
+	 */
+	private final int mPageSize;
+
+	/**
+	 * The page held by each slot, or {@link #NO_PAGE}.
+	 */
+	private final int[] mPageNumbers;
+
+	/**
+	 * The labels of the page held by each slot, or <code>null</code> while
+	 * the page is loading.
+	 */
+	private final String[][] mPages;
+
+	/**
+	 * The value of {@link #mUseCount} when each slot was last used.
+	 */
+	private final long[] mLastUse;
+
+	/**
+	 * Incremented whenever a slot is used.
+	 */
+	private long mUseCount;
+
+	/**
+	 * Incremented whenever the pages are cleared so that loads started
+	 * before can be discarded.
+	 */
+	private int mGeneration;
+
+	/**
+	 * The page which is never evicted, or {@link #NO_PAGE}.
+	 */
+	private int mPinnedPage = LabelPager.NO_PAGE;
+
+	LabelPager( final int pageSize, final int maxPages ) {
+		this.mPageSize = pageSize;
+		this.mPageNumbers = new int[ maxPages ];
+		this.mPages = new String[ maxPages ][];
+		this.mLastUse = new long[ maxPages ];
+		Arrays.fill( this.mPageNumbers, LabelPager.NO_PAGE );
+	}
+
+	/**
+	 * Removes all pages, unpins the pinned one and invalidates the loads in
+	 * progress.
+	 */
+	void clear() {
+		Arrays.fill( this.mPageNumbers, LabelPager.NO_PAGE );
+		Arrays.fill( this.mPages, null );
+		this.mPinnedPage = LabelPager.NO_PAGE;
+		this.mGeneration++;
+	}
+
+	/**
+	 * Returns the slot holding <code>page</code>, or -1 if there is none.
+	 */
+	private int findSlot( final int page ) {
+		for ( int i = 0; i < this.mPageNumbers.length; i++ ) {
+			if ( this.mPageNumbers[ i ] == page ) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Returns the label at <code>index</code>, or <code>null</code> if its
+	 * page is not loaded.
+	 */
+	String get( final long index ) {
+		final int slot = this.findSlot( this.getPage( index ) );
+		if ( ( slot < 0 ) || ( this.mPages[ slot ] == null ) ) {
+			return null;
+		}
+		this.mLastUse[ slot ] = ++this.mUseCount;
+		final String[] labels = this.mPages[ slot ];
+		final int offset = (int) ( index % this.mPageSize );
+		return ( offset < labels.length ) ? labels[ offset ] : null;
+	}
+
+	int getGeneration() {
+		return this.mGeneration;
+	}
+
+	/**
+	 * Returns the page holding the label at <code>index</code>, which must
+	 * not be negative or past {@link Integer#MAX_VALUE} so that the page is
+	 * never {@link #NO_PAGE}.
+	 */
+	int getPage( final long index ) {
+		return (int) ( index / this.mPageSize );
+	}
+
+	int getPageSize() {
+		return this.mPageSize;
+	}
+
+	/**
+	 * Keeps <code>page</code> from being evicted once requested, until it is
+	 * unpinned, another page is pinned or the pages are cleared.
+	 */
+	void pin( final int page ) {
+		this.mPinnedPage = page;
+	}
+
+	/**
+	 * Stores the <code>labels</code> of <code>page</code> loaded in
+	 * <code>generation</code>. They are dropped if the pages were cleared
+	 * since or the request of the page was evicted.
+	 *
+	 * @return Whether the labels were stored.
+	 */
+	boolean put( final int generation, final int page, final String[] labels ) {
+		final int slot = this.findSlot( page );
+		if ( ( generation != this.mGeneration ) || ( slot < 0 ) ) {
+			return false;
+		}
+		this.mPages[ slot ] = labels;
+		this.mLastUse[ slot ] = ++this.mUseCount;
+		return true;
+	}
+
+	/**
+	 * Removes <code>page</code> so that it is loaded again when it is next
+	 * requested.
+	 */
+	void remove( final int page ) {
+		final int slot = this.findSlot( page );
+		if ( slot >= 0 ) {
+			this.mPageNumbers[ slot ] = LabelPager.NO_PAGE;
+			this.mPages[ slot ] = null;
+		}
+	}
+
+	/**
+	 * Requests <code>page</code> unless it is already loaded or requested,
+	 * evicting the least recently used page other than the pinned one if the
+	 * window is full.
+	 *
+	 * @return Whether the page has to be loaded.
+	 */
+	boolean request( final int page ) {
+		if ( this.findSlot( page ) >= 0 ) {
+			return false;
+		}
+		int slot = -1;
+		for ( int i = 0; i < this.mPageNumbers.length; i++ ) {
+			if ( this.mPageNumbers[ i ] == LabelPager.NO_PAGE ) {
+				slot = i;
+				break;
+			}
+			if ( ( this.mPageNumbers[ i ] != this.mPinnedPage )
+					&& ( ( slot < 0 ) || ( this.mLastUse[ i ] < this.mLastUse[ slot ] ) ) ) {
+				slot = i;
+			}
+		}
+		this.mPageNumbers[ slot ] = page;
+		this.mPages[ slot ] = null;
+		this.mLastUse[ slot ] = ++this.mUseCount;
+		return true;
+	}
+
+	/**
+	 * Lets the pinned page be evicted again.
+	 */
+	void unpin() {
+		this.mPinnedPage = LabelPager.NO_PAGE;
+	}
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright (C) 2008 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.simonvt.numberpicker;
+
+import java.util.Locale;
+import java.util.WeakHashMap;
+
+import android.annotation.SuppressLint;
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.content.res.Configuration;
+import android.os.Build;
+
+/**
+ * Process wide pool of label caches shared by all pickers using the same
+ * {@link NumberPicker.Formatter} in the same locale. Formatters are held
+ * weakly so that pooling does not keep them, or whatever they reference,
+ * alive. Each cache is bounded and all of them are emptied when the system
+ * asks the process to trim its memory. The pool is only accessed from the UI
+ * thread.
+ */
+final class LabelPool {
+
+	/**
+	 * A cache and the locale its labels were formatted for.
+	 */
+	private static final class Entry {
+		final LabelCache mCache = new LabelCache( LabelPool.CAPACITY );
+
+		Locale mLocale;
+	}
+
+	/**
+	 * The max number of labels cached per formatter.
+	 */
+	private static final int CAPACITY = 256;
+
+	/**
+	 * The caches by formatter.
+	 */
+	private static final WeakHashMap<NumberPicker.Formatter, Entry> sEntries =
+			new WeakHashMap<NumberPicker.Formatter, Entry>();
+
+	/**
+	 * Whether the memory callbacks are registered.
+	 */
+	private static boolean sCallbacksRegistered;
+
+	/**
+	 * Returns the shared cache for the labels of <code>formatter</code> in
+	 * <code>locale</code>.
+	 */
+	static LabelCache obtain( final Context context,
+			final NumberPicker.Formatter formatter, final Locale locale ) {
+		LabelPool.registerCallbacks( context );
+		Entry entry = LabelPool.sEntries.get( formatter );
+		if ( entry == null ) {
+			entry = new Entry();
+			LabelPool.sEntries.put( formatter, entry );
+		}
+		if ( !locale.equals( entry.mLocale ) ) {
+			entry.mCache.clear();
+			entry.mLocale = locale;
+		}
+		return entry.mCache;
+	}
+
+	/**
+	 * Registers for memory pressure callbacks of the application, which are
+	 * only available on ICS and later.
+	 */
+	@SuppressLint( "NewApi" )
+	private static void registerCallbacks( final Context context ) {
+		if ( LabelPool.sCallbacksRegistered
+				|| ( Build.VERSION.SDK_INT < Build.VERSION_CODES.ICE_CREAM_SANDWICH ) ) {
+			return;
+		}
+		LabelPool.sCallbacksRegistered = true;
+		context.getApplicationContext().registerComponentCallbacks(
+				new ComponentCallbacks2() {
+					@Override
+					public void onConfigurationChanged(
+							final Configuration newConfig ) {
+						// The pickers switch caches on locale changes.
+					}
+
+					@Override
+					public void onLowMemory() {
+						LabelPool.trimMemory( ComponentCallbacks2.TRIM_MEMORY_COMPLETE );
+					}
+
+					@Override
+					public void onTrimMemory( final int level ) {
+						LabelPool.trimMemory( level );
+					}
+				} );
+	}
+
+	/**
+	 * Releases the pooled labels if <code>level</code> indicates that memory
+	 * is getting low or the UI is no longer visible.
+	 *
+	 * @see ComponentCallbacks2#onTrimMemory(int)
+	 */
+	static void trimMemory( final int level ) {
+		if ( level < ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW ) {
+			return;
+		}
+		for ( final Entry entry : LabelPool.sEntries.values() ) {
+			entry.mCache.clear();
+		}
+	}
+
+	private LabelPool() {
+	}
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright (C) 2008 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.simonvt.numberpicker;
+
+import android.graphics.Paint;
+
+/**
+ * A read only table of labels displayed instead of the values of a
+ * {@link NumberPicker}. The label at index <code>i</code> is shown for the
+ * value {@link NumberPicker#getMinValue()} + <code>i</code>. Tables are only
+ * accessed from the UI thread.
+ *
+ * @see NumberPicker#setDisplayedValueTable(LabelTable)
+ */
+public interface LabelTable {
+
+	/**
+	 * Copies the characters of the label at <code>index</code> into
+	 * <code>dst</code> starting at <code>dstBegin</code>.
+	 *
+	 * @see #getLength(int)
+	 */
+	public void getChars( int index, char[] dst, int dstBegin );
+
+	/**
+	 * Returns the label at <code>index</code> as a string.
+	 */
+	public String getLabel( int index );
+
+	/**
+	 * Returns the length of the label at <code>index</code>.
+	 */
+	public int getLength( int index );
+
+	/**
+	 * Returns the index of the first label equal to <code>text</code>
+	 * ignoring case, or -1 if there is none.
+	 */
+	public int indexOfIgnoreCase( CharSequence text );
+
+	/**
+	 * Returns the index of the first label starting with <code>text</code>
+	 * ignoring case, or -1 if there is none.
+	 */
+	public int indexOfPrefixIgnoreCase( CharSequence text );
+
+	/**
+	 * Returns the width of the widest label when drawn with
+	 * <code>paint</code>.
+	 */
+	public float measureMaxWidth( Paint paint );
+
+	/**
+	 * Returns the number of labels.
+	 */
+	public int size();
+}
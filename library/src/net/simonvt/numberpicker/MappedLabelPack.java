@@ -0,0 +1,479 @@
+/*
+ * Copyright (C) 2008 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.simonvt.numberpicker;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+
+import android.content.res.AssetFileDescriptor;
+import android.content.res.AssetManager;
+import android.graphics.Paint;
+import android.graphics.Typeface;
+
+/**
+ * A table of labels read from a memory mapped label pack file. Labels are
+ * decoded on demand when drawn or looked up, so the heap used does not depend
+ * on the number of labels and opening a pack does not read it.
+ * <p>
+ * A label pack is a big endian file made of:
+ * <ul>
+ * <li>the int magic <code>0x4E504C50</code> (&quot;NPLP&quot;),</li>
+ * <li>the int format version, 1 or 2,</li>
+ * <li>the int number of labels <code>n</code>,</li>
+ * <li><code>n + 1</code> int offsets, in chars, of each label followed by
+ * the total number of chars,</li>
+ * <li>the UTF-16 chars of all labels,</li>
+ * <li>the same chars in lower case.</li>
+ * </ul>
+ * Version 2 packs, written by the <code>android-numberpicker-labelpack</code>
+ * compiler, append an index of the labels sorted by lower case label for
+ * logarithmic lookups of typed input, and the labels that may be the widest
+ * at given text sizes so that the max width is found by measuring only those.
+ *
+ * @see NumberPicker#setDisplayedValueTable(LabelTable)
+ */
+public final class MappedLabelPack implements LabelTable {
+
+	/**
+	 * The magic number every label pack starts with.
+	 */
+	static final int MAGIC = 0x4E504C50;
+
+	/**
+	 * The first format version.
+	 */
+	static final int VERSION_1 = 1;
+
+	/**
+	 * The format version adding the sorted index and the width candidates.
+	 */
+	static final int VERSION_2 = 2;
+
+	/**
+	 * The size in bytes of the magic, version and label count.
+	 */
+	private static final int HEADER_SIZE = 12;
+
+	/**
+	 * The label offsets.
+	 */
+	private final IntBuffer mOffsets;
+
+	/**
+	 * The characters of all labels.
+	 */
+	private final CharBuffer mChars;
+
+	/**
+	 * The characters of all labels in lower case.
+	 */
+	private final CharBuffer mFoldedChars;
+
+	/**
+	 * The number of labels.
+	 */
+	private final int mSize;
+
+	/**
+	 * The label indices sorted by lower case label, or <code>null</code> for
+	 * version 1 packs.
+	 */
+	private final IntBuffer mSortedIndices;
+
+	/**
+	 * The number of sorted indices summarized by each block minimum.
+	 */
+	private final int mBlockSize;
+
+	/**
+	 * The smallest label index of each block of sorted indices.
+	 */
+	private final IntBuffer mBlockMinimums;
+
+	/**
+	 * The text sizes the width candidates were computed for.
+	 */
+	private final float[] mCandidateTextSizes;
+
+	/**
+	 * The labels that may be the widest at each of
+	 * {@link #mCandidateTextSizes}.
+	 */
+	private final int[][] mWidthCandidates;
+
+	/**
+	 * Buffer labels are decoded into for measuring and creating strings.
+	 */
+	private char[] mScratch = new char[ 32 ];
+
+	/**
+	 * The text size of the last max width measurement.
+	 */
+	private float mMeasuredTextSize = -1;
+
+	/**
+	 * The typeface of the last max width measurement.
+	 */
+	private Typeface mMeasuredTypeface;
+
+	/**
+	 * The result of the last max width measurement.
+	 */
+	private float mMeasuredMaxWidth;
+
+	private MappedLabelPack( final ByteBuffer buffer ) throws IOException {
+		if ( ( buffer.capacity() < MappedLabelPack.HEADER_SIZE )
+				|| ( buffer.getInt( 0 ) != MappedLabelPack.MAGIC ) ) {
+			throw new IOException( "not a label pack" );
+		}
+		final int version = buffer.getInt( 4 );
+		if ( ( version != MappedLabelPack.VERSION_1 )
+				&& ( version != MappedLabelPack.VERSION_2 ) ) {
+			throw new IOException( "unsupported label pack version " + version );
+		}
+		final int size = buffer.getInt( 8 );
+		final long charsStart =
+				MappedLabelPack.HEADER_SIZE + ( 4L * ( size + 1L ) );
+		if ( ( size < 0 ) || ( charsStart > buffer.capacity() ) ) {
+			throw new IOException( "truncated label pack" );
+		}
+		buffer.position( MappedLabelPack.HEADER_SIZE );
+		this.mOffsets = buffer.slice().asIntBuffer();
+		final int charCount = this.mOffsets.get( size );
+		if ( ( charCount < 0 )
+				|| ( ( charsStart + ( 4L * charCount ) ) > buffer.capacity() ) ) {
+			throw new IOException( "truncated label pack" );
+		}
+		buffer.position( (int) charsStart );
+		this.mChars = buffer.slice().asCharBuffer();
+		buffer.position( (int) charsStart + ( 2 * charCount ) );
+		this.mFoldedChars = buffer.slice().asCharBuffer();
+		this.mSize = size;
+
+		if ( version == MappedLabelPack.VERSION_1 ) {
+			this.mSortedIndices = null;
+			this.mBlockSize = 0;
+			this.mBlockMinimums = null;
+			this.mCandidateTextSizes = new float[ 0 ];
+			this.mWidthCandidates = new int[ 0 ][];
+			return;
+		}
+		try {
+			buffer.position( (int) charsStart + ( 4 * charCount ) );
+			this.mSortedIndices = buffer.slice().asIntBuffer();
+			buffer.position( buffer.position() + ( 4 * size ) );
+			this.mBlockSize = buffer.getInt();
+			final int blockCount = buffer.getInt();
+			if ( ( this.mBlockSize <= 0 )
+					|| ( blockCount != ( ( ( size + this.mBlockSize ) - 1 ) / this.mBlockSize ) ) ) {
+				throw new IOException( "corrupt label pack index" );
+			}
+			this.mBlockMinimums = buffer.slice().asIntBuffer();
+			buffer.position( buffer.position() + ( 4 * blockCount ) );
+			final int textSizeCount = buffer.getInt();
+			this.mCandidateTextSizes = new float[ textSizeCount ];
+			this.mWidthCandidates = new int[ textSizeCount ][];
+			for ( int i = 0; i < textSizeCount; i++ ) {
+				this.mCandidateTextSizes[ i ] = buffer.getFloat();
+				this.mWidthCandidates[ i ] = new int[ buffer.getInt() ];
+				buffer.asIntBuffer().get( this.mWidthCandidates[ i ] );
+				buffer.position( buffer.position()
+						+ ( 4 * this.mWidthCandidates[ i ].length ) );
+			}
+		} catch ( final RuntimeException e ) {
+			// Buffer underflows and negative counts of a truncated file.
+			throw new IOException( "truncated label pack" );
+		}
+	}
+
+	/**
+	 * Returns the result of comparing the lower case label at
+	 * <code>index</code> to the lower cased <code>text</code>, only
+	 * considering the first <code>text.length()</code> chars of the label if
+	 * <code>prefix</code> is set.
+	 */
+	private int compareFolded( final int index, final CharSequence text,
+			final boolean prefix ) {
+		final CharBuffer folded = this.mFoldedChars;
+		final int offset = this.mOffsets.get( index );
+		final int length = this.getLength( index );
+		final int textLength = text.length();
+		final int count = Math.min( length, textLength );
+		for ( int i = 0; i < count; i++ ) {
+			final char c = folded.get( offset + i );
+			final char t = Character.toLowerCase( text.charAt( i ) );
+			if ( c != t ) {
+				return c - t;
+			}
+		}
+		if ( prefix && ( length >= textLength ) ) {
+			return 0;
+		}
+		return length - textLength;
+	}
+
+	/**
+	 * Maps the label pack <code>file</code>.
+	 *
+	 * @throws IOException
+	 *             If the file cannot be read or is not a label pack.
+	 */
+	public static MappedLabelPack open( final File file ) throws IOException {
+		final RandomAccessFile input = new RandomAccessFile( file, "r" );
+		try {
+			final FileChannel channel = input.getChannel();
+			return MappedLabelPack.map( channel, 0, channel.size() );
+		} finally {
+			input.close();
+		}
+	}
+
+	/**
+	 * Maps the label pack asset <code>fileName</code>. The asset must be
+	 * stored uncompressed in the APK, for instance by giving it an extension
+	 * that is not compressed by default.
+	 *
+	 * @throws IOException
+	 *             If the asset cannot be opened or is not a label pack.
+	 */
+	public static MappedLabelPack openAsset( final AssetManager assets,
+			final String fileName ) throws IOException {
+		final AssetFileDescriptor descriptor = assets.openFd( fileName );
+		// The stream owns the descriptor and closes it when closed.
+		final FileInputStream input = descriptor.createInputStream();
+		try {
+			return MappedLabelPack.map( input.getChannel(),
+					descriptor.getStartOffset(), descriptor.getLength() );
+		} finally {
+			input.close();
+		}
+	}
+
+	/**
+	 * Maps the label pack at <code>position</code> in <code>channel</code>.
+	 * The mapping stays valid after the channel is closed.
+	 */
+	private static MappedLabelPack map( final FileChannel channel,
+			final long position, final long size ) throws IOException {
+		if ( size > Integer.MAX_VALUE ) {
+			throw new IOException( "label pack too large" );
+		}
+		return new MappedLabelPack( channel.map(
+				FileChannel.MapMode.READ_ONLY, position, size ) );
+	}
+
+	/**
+	 * Returns a buffer of at least <code>length</code> chars to decode into.
+	 */
+	private char[] ensureScratch( final int length ) {
+		if ( this.mScratch.length < length ) {
+			this.mScratch = new char[ Math.max( length, this.mScratch.length * 2 ) ];
+		}
+		return this.mScratch;
+	}
+
+	@Override
+	public void getChars( final int index, final char[] dst, final int dstBegin ) {
+		this.mChars.position( this.mOffsets.get( index ) );
+		this.mChars.get( dst, dstBegin, this.getLength( index ) );
+	}
+
+	@Override
+	public String getLabel( final int index ) {
+		final int length = this.getLength( index );
+		final char[] scratch = this.ensureScratch( length );
+		this.getChars( index, scratch, 0 );
+		return new String( scratch, 0, length );
+	}
+
+	@Override
+	public int getLength( final int index ) {
+		return this.mOffsets.get( index + 1 ) - this.mOffsets.get( index );
+	}
+
+	@Override
+	public int indexOfIgnoreCase( final CharSequence text ) {
+		if ( this.mSortedIndices != null ) {
+			final int position = this.lowerBound( text );
+			if ( position < this.mSize ) {
+				final int index = this.mSortedIndices.get( position );
+				if ( this.compareFolded( index, text, false ) == 0 ) {
+					return index;
+				}
+			}
+			return -1;
+		}
+		for ( int i = 0; i < this.mSize; i++ ) {
+			if ( ( this.getLength( i ) == text.length() )
+					&& this.regionMatchesIgnoreCase( i, text ) ) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	@Override
+	public int indexOfPrefixIgnoreCase( final CharSequence text ) {
+		if ( this.mSortedIndices != null ) {
+			final int from = this.lowerBound( text );
+			final int to = this.upperBound( text );
+			return ( from < to ) ? this.minIndex( from, to ) : -1;
+		}
+		for ( int i = 0; i < this.mSize; i++ ) {
+			if ( ( this.getLength( i ) >= text.length() )
+					&& this.regionMatchesIgnoreCase( i, text ) ) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Returns the first position in the sorted index whose label is not less
+	 * than <code>text</code>.
+	 */
+	private int lowerBound( final CharSequence text ) {
+		int low = 0;
+		int high = this.mSize;
+		while ( low < high ) {
+			final int middle = ( low + high ) >>> 1;
+			if ( this.compareFolded( this.mSortedIndices.get( middle ), text,
+					false ) < 0 ) {
+				low = middle + 1;
+			} else {
+				high = middle;
+			}
+		}
+		return low;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * Labels are decoded one at a time into a reused buffer and the result is
+	 * kept until the text size or typeface of <code>paint</code> changes. For
+	 * packs with width candidates only the candidates of the closest text
+	 * size are measured.
+	 */
+	@Override
+	public float measureMaxWidth( final Paint paint ) {
+		if ( ( this.mMeasuredTextSize == paint.getTextSize() )
+				&& ( this.mMeasuredTypeface == paint.getTypeface() ) ) {
+			return this.mMeasuredMaxWidth;
+		}
+		final int[] candidates = this.widthCandidatesFor( paint.getTextSize() );
+		final int count = ( candidates != null ) ? candidates.length : this.mSize;
+		float maxWidth = 0;
+		for ( int i = 0; i < count; i++ ) {
+			final int index = ( candidates != null ) ? candidates[ i ] : i;
+			final int length = this.getLength( index );
+			final char[] scratch = this.ensureScratch( length );
+			this.getChars( index, scratch, 0 );
+			final float width = paint.measureText( scratch, 0, length );
+			if ( width > maxWidth ) {
+				maxWidth = width;
+			}
+		}
+		this.mMeasuredTextSize = paint.getTextSize();
+		this.mMeasuredTypeface = paint.getTypeface();
+		this.mMeasuredMaxWidth = maxWidth;
+		return maxWidth;
+	}
+
+	/**
+	 * Returns the smallest label index at the sorted positions
+	 * <code>from</code> inclusive to <code>to</code> exclusive.
+	 */
+	private int minIndex( final int from, final int to ) {
+		final int blockSize = this.mBlockSize;
+		int min = Integer.MAX_VALUE;
+		int position = from;
+		while ( ( position < to ) && ( ( position % blockSize ) != 0 ) ) {
+			min = Math.min( min, this.mSortedIndices.get( position++ ) );
+		}
+		while ( ( position + blockSize ) <= to ) {
+			min = Math.min( min, this.mBlockMinimums.get( position / blockSize ) );
+			position += blockSize;
+		}
+		while ( position < to ) {
+			min = Math.min( min, this.mSortedIndices.get( position++ ) );
+		}
+		return min;
+	}
+
+	/**
+	 * Returns whether the label at <code>index</code> starts with
+	 * <code>text</code> ignoring case.
+	 */
+	private boolean regionMatchesIgnoreCase( final int index,
+			final CharSequence text ) {
+		final CharBuffer folded = this.mFoldedChars;
+		final int offset = this.mOffsets.get( index );
+		for ( int i = 0; i < text.length(); i++ ) {
+			if ( folded.get( offset + i ) != Character.toLowerCase( text.charAt( i ) ) ) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	@Override
+	public int size() {
+		return this.mSize;
+	}
+
+	/**
+	 * Returns the first position in the sorted index whose label does not
+	 * start with <code>text</code> and is greater than it.
+	 */
+	private int upperBound( final CharSequence text ) {
+		int low = 0;
+		int high = this.mSize;
+		while ( low < high ) {
+			final int middle = ( low + high ) >>> 1;
+			if ( this.compareFolded( this.mSortedIndices.get( middle ), text,
+					true ) <= 0 ) {
+				low = middle + 1;
+			} else {
+				high = middle;
+			}
+		}
+		return low;
+	}
+
+	/**
+	 * Returns the width candidates recorded for the text size closest to
+	 * <code>textSize</code>, or <code>null</code> if there are none.
+	 */
+	private int[] widthCandidatesFor( final float textSize ) {
+		int best = -1;
+		for ( int i = 0; i < this.mCandidateTextSizes.length; i++ ) {
+			if ( ( best < 0 )
+					|| ( Math.abs( this.mCandidateTextSizes[ i ] - textSize ) < Math.abs( this.mCandidateTextSizes[ best ]
+							- textSize ) ) ) {
+				best = i;
+			}
+		}
+		return ( best >= 0 ) ? this.mWidthCandidates[ best ] : null;
+	}
+}
@@ -16,15 +16,20 @@
 
 package net.simonvt.numberpicker;
 
-import java.text.DecimalFormatSymbols;
+import java.lang.reflect.Method;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collections;
 import java.util.List;
 import java.util.Locale;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 
 import android.annotation.SuppressLint;
 import android.content.Context;
 import android.content.res.ColorStateList;
+import android.content.res.Configuration;
 import android.content.res.TypedArray;
 import android.graphics.Canvas;
 import android.graphics.Color;
@@ -40,8 +45,9 @@ import android.text.Spanned;
 import android.text.TextUtils;
 import android.text.method.NumberKeyListener;
 import android.util.AttributeSet;
-import android.util.SparseArray;
 import android.util.TypedValue;
+import android.view.Choreographer;
+import android.view.Display;
 import android.view.KeyEvent;
 import android.view.LayoutInflater;
 import android.view.LayoutInflater.Filter;
@@ -49,6 +55,7 @@ import android.view.MotionEvent;
 import android.view.VelocityTracker;
 import android.view.View;
 import android.view.ViewConfiguration;
+import android.view.WindowManager;
 import android.view.accessibility.AccessibilityEvent;
 import android.view.accessibility.AccessibilityManager;
 import android.view.accessibility.AccessibilityNodeInfo;
@@ -199,11 +206,11 @@ public class NumberPicker extends LinearLayout {
 			}
 			if ( NumberPicker.this.isEnabled() ) {
 				if ( NumberPicker.this.getWrapSelectorWheel()
-						|| ( NumberPicker.this.getValue() < NumberPicker.this.getMaxValue() ) ) {
+						|| ( NumberPicker.this.getLongValue() < NumberPicker.this.getLongMaxValue() ) ) {
 					info.addAction( AccessibilityNodeInfo.ACTION_SCROLL_FORWARD );
 				}
 				if ( NumberPicker.this.getWrapSelectorWheel()
-						|| ( NumberPicker.this.getValue() > NumberPicker.this.getMinValue() ) ) {
+						|| ( NumberPicker.this.getLongValue() > NumberPicker.this.getLongMinValue() ) ) {
 					info.addAction( AccessibilityNodeInfo.ACTION_SCROLL_BACKWARD );
 				}
 			}
@@ -342,39 +349,31 @@ public class NumberPicker extends LinearLayout {
 		}
 
 		private String getVirtualDecrementButtonText() {
-			int value = NumberPicker.this.mValue - 1;
-			if ( NumberPicker.this.mWrapSelectorWheel ) {
-				value = NumberPicker.this.getWrappedSelectorIndex( value );
+			if ( !NumberPicker.this.mWrapSelectorWheel
+					&& !NumberPicker.this.canStep( NumberPicker.this.mValue, -1 ) ) {
+				return null;
 			}
-			if ( value >= NumberPicker.this.mMinValue ) {
-				return ( NumberPicker.this.mDisplayedValues == null ) ? NumberPicker.this.formatNumber( value )
-						: NumberPicker.this.mDisplayedValues[ value
-								- NumberPicker.this.mMinValue ];
-			}
-			return null;
+			return NumberPicker.this.getLabel( NumberPicker.this.stepValue(
+					NumberPicker.this.mValue, -1 ), false );
 		}
 
 		private String getVirtualIncrementButtonText() {
-			int value = NumberPicker.this.mValue + 1;
-			if ( NumberPicker.this.mWrapSelectorWheel ) {
-				value = NumberPicker.this.getWrappedSelectorIndex( value );
+			if ( !NumberPicker.this.mWrapSelectorWheel
+					&& !NumberPicker.this.canStep( NumberPicker.this.mValue, 1 ) ) {
+				return null;
 			}
-			if ( value <= NumberPicker.this.mMaxValue ) {
-				return ( NumberPicker.this.mDisplayedValues == null ) ? NumberPicker.this.formatNumber( value )
-						: NumberPicker.this.mDisplayedValues[ value
-								- NumberPicker.this.mMinValue ];
-			}
-			return null;
+			return NumberPicker.this.getLabel( NumberPicker.this.stepValue(
+					NumberPicker.this.mValue, 1 ), false );
 		}
 
 		private boolean hasVirtualDecrementButton() {
 			return NumberPicker.this.getWrapSelectorWheel()
-					|| ( NumberPicker.this.getValue() > NumberPicker.this.getMinValue() );
+					|| ( NumberPicker.this.getLongValue() > NumberPicker.this.getLongMinValue() );
 		}
 
 		private boolean hasVirtualIncrementButton() {
 			return NumberPicker.this.getWrapSelectorWheel()
-					|| ( NumberPicker.this.getValue() < NumberPicker.this.getMaxValue() );
+					|| ( NumberPicker.this.getLongValue() < NumberPicker.this.getLongMaxValue() );
 		}
 
 		@Override
@@ -408,7 +407,7 @@ public class NumberPicker extends LinearLayout {
 				}
 				case AccessibilityNodeInfo.ACTION_SCROLL_FORWARD: {
 					if ( NumberPicker.this.isEnabled()
-							&& ( NumberPicker.this.getWrapSelectorWheel() || ( NumberPicker.this.getValue() < NumberPicker.this.getMaxValue() ) ) ) {
+							&& ( NumberPicker.this.getWrapSelectorWheel() || ( NumberPicker.this.getLongValue() < NumberPicker.this.getLongMaxValue() ) ) ) {
 						NumberPicker.this.changeValueByOne( true );
 						return true;
 					}
@@ -416,7 +415,7 @@ public class NumberPicker extends LinearLayout {
 					return false;
 				case AccessibilityNodeInfo.ACTION_SCROLL_BACKWARD: {
 					if ( NumberPicker.this.isEnabled()
-							&& ( NumberPicker.this.getWrapSelectorWheel() || ( NumberPicker.this.getValue() > NumberPicker.this.getMinValue() ) ) ) {
+							&& ( NumberPicker.this.getWrapSelectorWheel() || ( NumberPicker.this.getLongValue() > NumberPicker.this.getLongMinValue() ) ) ) {
 						NumberPicker.this.changeValueByOne( false );
 						return true;
 					}
@@ -628,6 +627,24 @@ public class NumberPicker extends LinearLayout {
 		}
 	}
 
+	/**
+	 * Interface used to format a value by appending it to a buffer supplied by
+	 * the picker. Unlike {@link Formatter} no string has to be created for
+	 * every value, so the selector wheel can be scrolled without allocations.
+	 */
+	public interface AppendingFormatter {
+
+		/**
+		 * Appends a formatted representation of a value.
+		 * 
+		 * @param value
+		 *            The value to format.
+		 * @param out
+		 *            The reused buffer to append to. It is empty when passed.
+		 */
+		public void format( int value, StringBuilder out );
+	}
+
 	/**
 	 * Command for beginning soft input on long press.
 	 */
@@ -676,6 +693,65 @@ public class NumberPicker extends LinearLayout {
 		}
 	}
 
+	/**
+	 * Command for formatting a range of labels on the label executor and
+	 * publishing them to the picker on the UI thread.
+	 */
+	class FormatLabelsCommand implements Runnable {
+		private final Formatter mFormatter;
+
+		private final int mFrom;
+
+		private final int mTo;
+
+		/**
+		 * The values to format, or <code>null</code> for all values from
+		 * {@link #mFrom} to {@link #mTo}.
+		 */
+		private final int[] mValues;
+
+		private final int mGeneration;
+
+		FormatLabelsCommand( final Formatter formatter, final int from,
+				final int to, final int[] values, final int generation ) {
+			this.mFormatter = formatter;
+			this.mFrom = from;
+			this.mTo = to;
+			this.mValues = values;
+			this.mGeneration = generation;
+		}
+
+		/**
+		 * Returns the value of the <code>i</code>th label.
+		 */
+		int getValue( final int i ) {
+			return ( this.mValues != null ) ? this.mValues[ i ] : this.mFrom + i;
+		}
+
+		@Override
+		public void run() {
+			final String[] labels =
+					new String[ ( this.mValues != null ) ? this.mValues.length
+							: ( this.mTo - this.mFrom ) + 1 ];
+			if ( ( this.mValues == null )
+					&& ( this.mFormatter instanceof RangeFormatter ) ) {
+				( (RangeFormatter) this.mFormatter ).formatRange( this.mFrom,
+						this.mTo, labels );
+			} else {
+				for ( int i = 0; i < labels.length; i++ ) {
+					labels[ i ] = this.mFormatter.format( this.getValue( i ) );
+				}
+			}
+			NumberPicker.this.post( new Runnable() {
+				@Override
+				public void run() {
+					NumberPicker.this.onLabelsFormatted(
+							FormatLabelsCommand.this, labels );
+				}
+			} );
+		}
+	}
+
 	/**
 	 * Interface used to format current value into a string for presentation.
 	 */
@@ -691,16 +767,56 @@ public class NumberPicker extends LinearLayout {
 		public String format( int value );
 	}
 
+	/**
+	 * A {@link Formatter} that can also format a whole range of values in one
+	 * pass. Used by {@link NumberPicker#prefetchLabels(int, int)} to warm the
+	 * label cache, for example when a formatter shares expensive setup
+	 * between consecutive values.
+	 */
+	public interface RangeFormatter extends Formatter {
+
+		/**
+		 * Formats the values from <code>from</code> to <code>to</code>.
+		 * 
+		 * @param from
+		 *            The first value to format, inclusive.
+		 * @param to
+		 *            The last value to format, inclusive.
+		 * @param out
+		 *            The array receiving the labels, the label of
+		 *            <code>from + i</code> at index <code>i</code>.
+		 */
+		public void formatRange( int from, int to, String[] out );
+	}
+
 	/**
 	 * Filter for accepting only valid indices or prefixes of the string
 	 * representation of valid indices.
 	 */
 	class InputTextFilter extends NumberKeyListener {
+
+		/**
+		 * The accepted chars, the digits followed by the minus signs and the
+		 * decimal separators, if any.
+		 */
+		private char[] mAcceptedChars;
+
+		/**
+		 * The locale decimal separator held by {@link #mAcceptedChars}, or 0
+		 * if it holds no decimal separators.
+		 */
+		private char mAcceptedDecimalSeparator;
+
+		/**
+		 * The locale minus sign held by {@link #mAcceptedChars}.
+		 */
+		private char mAcceptedMinusSign;
+
 		@Override
 		public CharSequence filter( final CharSequence source, final int start,
 				final int end, final Spanned dest, final int dstart,
 				final int dend ) {
-			if ( NumberPicker.this.mDisplayedValues == null ) {
+			if ( !NumberPicker.this.hasDisplayedValues() ) {
 				CharSequence filtered =
 						super.filter( source, start, end, dest, dstart, dend );
 
@@ -717,7 +833,21 @@ public class NumberPicker extends LinearLayout {
 					return result;
 				}
 
-				final int val = NumberPicker.this.getSelectedPos( result );
+				// A minus sign may only lead the number of a range reaching
+				// below zero, and stands alone while the number is typed.
+				final String number = NumberPicker.this.stripLabelTemplate( result );
+				for ( int i = 0; i < number.length(); i++ ) {
+					if ( NumberPicker.isMinusSign( number.charAt( i ) )
+							&& ( ( i > 0 ) || ( NumberPicker.this.mMinValue >= 0 ) ) ) {
+						return "";
+					}
+				}
+				if ( ( number.length() == 0 )
+						|| ( ( number.length() == 1 ) && NumberPicker.isMinusSign( number.charAt( 0 ) ) ) ) {
+					return filtered;
+				}
+
+				final long val = NumberPicker.this.getSelectedPos( result );
 
 				/*
 				 * Ensure the user can't type in a value greater than the max
@@ -741,6 +871,26 @@ public class NumberPicker extends LinearLayout {
 						String.valueOf( dest.subSequence( 0, dstart ) )
 								+ filtered
 								+ dest.subSequence( dend, dest.length() );
+
+				if ( NumberPicker.this.mDisplayedValues == null ) {
+					int index = NumberPicker.this.indexOfLabel( result, false );
+					if ( index < 0 ) {
+						index = NumberPicker.this.indexOfLabel( result, true );
+					}
+					if ( index < 0 ) {
+						return "";
+					}
+					final String val =
+							NumberPicker.this.getLabel( NumberPicker.this.toValue( index ) );
+					if ( !val.regionMatches( true, 0, result, 0, result.length() ) ) {
+						// The label of a paged source is still loading.
+						return filtered;
+					}
+					NumberPicker.this.postSetSelectionCommand(
+							result.length(), val.length() );
+					return val.subSequence( dstart, val.length() );
+				}
+
 				final String str = String.valueOf( result ).toLowerCase();
 				CharSequence bestMatch = "";
 
@@ -769,7 +919,39 @@ public class NumberPicker extends LinearLayout {
 
 		@Override
 		protected char[] getAcceptedChars() {
-			return NumberPicker.DIGIT_CHARACTERS;
+			final DigitFormatter digits = NumberPicker.sDigitFormatter;
+			final char decimalSeparator =
+					NumberPicker.this.mDecimalScale > 0 ? digits
+							.getDecimalSeparator() : 0;
+			final char minusSign = digits.getMinusSign();
+			if ( ( this.mAcceptedChars == null )
+					|| ( decimalSeparator != this.mAcceptedDecimalSeparator )
+					|| ( minusSign != this.mAcceptedMinusSign ) ) {
+				// Only the separators parse accepts as decimal ones, so that
+				// a grouping separator is not silently dropped.
+				final boolean dot =
+						( decimalSeparator != 0 )
+								&& ( decimalSeparator != '.' )
+								&& ( digits.getGroupingSeparator() != '.' );
+				final char[] chars = NumberPicker.DIGIT_CHARACTERS;
+				final int length =
+						chars.length + 2 + ( decimalSeparator != 0 ? 1 : 0 )
+								+ ( dot ? 1 : 0 );
+				this.mAcceptedChars = new char[ length ];
+				System.arraycopy( chars, 0, this.mAcceptedChars, 0, chars.length );
+				int i = chars.length;
+				this.mAcceptedChars[ i++ ] = '-';
+				this.mAcceptedChars[ i++ ] = minusSign;
+				if ( decimalSeparator != 0 ) {
+					this.mAcceptedChars[ i++ ] = decimalSeparator;
+				}
+				if ( dot ) {
+					this.mAcceptedChars[ i++ ] = '.';
+				}
+				this.mAcceptedDecimalSeparator = decimalSeparator;
+				this.mAcceptedMinusSign = minusSign;
+			}
+			return this.mAcceptedChars;
 		}
 
 		// XXX This doesn't allow for range limits when controlled by a
@@ -780,6 +962,44 @@ public class NumberPicker extends LinearLayout {
 		}
 	}
 
+	/**
+	 * Command for loading a page of labels from the paged label source on the
+	 * label executor and publishing it to the picker on the UI thread.
+	 */
+	class LoadLabelPageCommand implements Runnable {
+		private final PagedLabelSource mSource;
+
+		private final int mPage;
+
+		private final int mFrom;
+
+		private final int mCount;
+
+		private final int mGeneration;
+
+		LoadLabelPageCommand( final PagedLabelSource source, final int page,
+				final int from, final int count, final int generation ) {
+			this.mSource = source;
+			this.mPage = page;
+			this.mFrom = from;
+			this.mCount = count;
+			this.mGeneration = generation;
+		}
+
+		@Override
+		public void run() {
+			final String[] labels =
+					this.mSource.loadLabels( this.mFrom, this.mCount );
+			NumberPicker.this.post( new Runnable() {
+				@Override
+				public void run() {
+					NumberPicker.this.onLabelPageLoaded(
+							LoadLabelPageCommand.this, labels );
+				}
+			} );
+		}
+	}
+
 	/**
 	 * Interface to listen for the picker scroll state.
 	 */
@@ -834,6 +1054,64 @@ public class NumberPicker extends LinearLayout {
 		void onValueChange( NumberPicker picker, int oldVal, int newVal );
 	}
 
+	/**
+	 * Interface to learn the value a fling will land on as soon as it starts,
+	 * for instance to load the data shown for that value while the selector
+	 * wheel is still moving.
+	 */
+	public interface OnValuePredictedListener {
+
+		/**
+		 * Called when a fling starts with the value it will land on. The
+		 * current value changes as the selector wheel passes the values in
+		 * between, and a touch stopping the fling makes the prediction void.
+		 * 
+		 * @param picker
+		 *            The NumberPicker associated with this listener.
+		 * @param value
+		 *            The value the fling will land on.
+		 */
+		void onValuePredicted( NumberPicker picker, long value );
+	}
+
+	/**
+	 * Interface used to load the labels displayed instead of the values a
+	 * page at a time, from a source too slow to be read on the UI thread such
+	 * as a database. Only a bounded window of pages around the shown values
+	 * is kept.
+	 */
+	public interface PagedLabelSource {
+
+		/**
+		 * Finds the value whose label matches typed text. This is invoked on
+		 * the UI thread while the user types.
+		 * 
+		 * @param text
+		 *            The typed text.
+		 * @param prefix
+		 *            Whether to match labels starting with <code>text</code>
+		 *            instead of equal to it.
+		 * @return The index of the first value whose label matches
+		 *         <code>text</code> ignoring case, or -1 if there is none or
+		 *         the source cannot be searched on the UI thread.
+		 */
+		public int indexOfLabel( String text, boolean prefix );
+
+		/**
+		 * Loads the labels of consecutive values. This is invoked on the
+		 * label executor if one is set and on the UI thread otherwise.
+		 * 
+		 * @param from
+		 *            The index of the first value, which is the value minus
+		 *            {@link NumberPicker#getMinValue()} divided by
+		 *            {@link NumberPicker#getStep()}.
+		 * @param count
+		 *            The number of labels to load.
+		 * @return The <code>count</code> labels.
+		 */
+		public String[] loadLabels( int from, int count );
+	}
+
 	class PressedStateHelper implements Runnable {
 		public static final int BUTTON_INCREMENT = 1;
 		public static final int BUTTON_DECREMENT = 2;
@@ -978,50 +1256,226 @@ public class NumberPicker extends LinearLayout {
 
 	/**
 	 * Use a custom NumberPicker formatting callback to use two-digit minutes
-	 * strings like "01". Keeping a static formatter etc. is the most efficient
-	 * way to do this; it avoids creating temporary objects on every call to
-	 * format().
+	 * strings like "01". The labels for 00 to 99 are precomputed for the
+	 * current locale so format() does not create temporary objects. The table
+	 * is rebuilt only when a locale change is reported through
+	 * {@link #onLocaleChanged(Locale)}. The formatter is shared, so it is safe
+	 * to use from the threads of a label executor: the table is swapped in
+	 * whole and the digit formatter is only used under the lock.
 	 */
 	private static class TwoDigitFormatter implements NumberPicker.Formatter {
-		private static char getZeroDigit( final Locale locale ) {
-			// return LocaleData.get(locale).zeroDigit;
-			return new DecimalFormatSymbols( locale ).getZeroDigit();
-		}
+		private static final int LABEL_COUNT = 100;
 
-		final StringBuilder mBuilder = new StringBuilder();
-		char mZeroDigit;
+		volatile String[] mLabels;
 
-		java.util.Formatter mFmt;
-
-		final Object[] mArgs = new Object[ 1 ];
+		final DigitFormatter mDigitFormatter;
 
 		TwoDigitFormatter() {
-			final Locale locale = Locale.getDefault();
-			this.init( locale );
+			this.mDigitFormatter = new DigitFormatter( Locale.getDefault() );
+			this.mLabels = this.buildLabels();
 		}
 
-		private java.util.Formatter createFormatter( final Locale locale ) {
-			return new java.util.Formatter( this.mBuilder, locale );
+		/**
+		 * Returns the labels of 00 to 99. Must be called under the lock.
+		 */
+		private String[] buildLabels() {
+			final String[] labels = new String[ TwoDigitFormatter.LABEL_COUNT ];
+			for ( int i = 0; i < TwoDigitFormatter.LABEL_COUNT; i++ ) {
+				final int length = this.mDigitFormatter.render( i, 2 );
+				labels[ i ] =
+						new String( this.mDigitFormatter.getBuffer(),
+								this.mDigitFormatter.getStart(), length );
+			}
+			return labels;
 		}
 
 		@Override
 		public String format( final int value ) {
-			final Locale currentLocale = Locale.getDefault();
-			if ( this.mZeroDigit != TwoDigitFormatter.getZeroDigit( currentLocale ) ) {
-				this.init( currentLocale );
+			if ( ( value >= 0 ) && ( value < TwoDigitFormatter.LABEL_COUNT ) ) {
+				return this.mLabels[ value ];
+			}
+			synchronized ( this ) {
+				final int length = this.mDigitFormatter.render( value, 2 );
+				return new String( this.mDigitFormatter.getBuffer(),
+						this.mDigitFormatter.getStart(), length );
+			}
+		}
+
+		/**
+		 * Rebuilds the labels if <code>locale</code> differs from the one
+		 * they were built for.
+		 *
+		 * @return Whether the labels were rebuilt.
+		 */
+		synchronized boolean onLocaleChanged( final Locale locale ) {
+			if ( locale.equals( this.mDigitFormatter.getLocale() ) ) {
+				return false;
+			}
+			this.mDigitFormatter.setLocale( locale );
+			this.mLabels = this.buildLabels();
+			return true;
+		}
+	}
+
+	/**
+	 * Clock driving the scrollers from the vsync signal of the display. While
+	 * a scroller runs, each frame is requested from the {@link Choreographer}
+	 * and the scroll position is computed for the time the frame will be
+	 * presented, one frame interval after its vsync, in nanoseconds. This
+	 * keeps the per frame movement even on high refresh rate displays.
+	 */
+	@SuppressLint( "NewApi" )
+	class VsyncClock implements Scroller.TimeSource, Choreographer.FrameCallback {
+
+		/**
+		 * The vsync time of the latest frame.
+		 */
+		private long mFrameTimeNanos;
+
+		/**
+		 * The time between two frames.
+		 */
+		private long mFrameIntervalNanos = NumberPicker.DEFAULT_FRAME_INTERVAL_NANOS;
+
+		/**
+		 * Flag whether a frame callback is posted.
+		 */
+		private boolean mFramePosted;
+
+		/**
+		 * The View.getDisplay() method, looked up on first use.
+		 */
+		private Method mGetDisplayMethod;
+
+		/**
+		 * Removes the posted frame callback, if any.
+		 */
+		void cancel() {
+			if ( this.mFramePosted ) {
+				Choreographer.getInstance().removeFrameCallback( this );
+				this.mFramePosted = false;
+			}
+		}
+
+		@Override
+		public void doFrame( final long frameTimeNanos ) {
+			this.mFramePosted = false;
+			this.mFrameTimeNanos = frameTimeNanos;
+			NumberPicker.this.invalidate();
+		}
+
+		/**
+		 * Returns the display the picker is attached to, or the default
+		 * display before API 17 or while the picker is detached.
+		 */
+		private Display getDisplay() {
+			if ( Build.VERSION.SDK_INT >= NumberPicker.JELLY_BEAN_MR1 ) {
+				try {
+					if ( this.mGetDisplayMethod == null ) {
+						this.mGetDisplayMethod = View.class.getMethod( "getDisplay" );
+					}
+					final Display display =
+							(Display) this.mGetDisplayMethod.invoke( NumberPicker.this );
+					if ( display != null ) {
+						return display;
+					}
+				} catch ( final Exception exception ) {
+					// Fall back to the default display.
+				}
+			}
+			return ( (WindowManager) NumberPicker.this.getContext().getSystemService(
+					Context.WINDOW_SERVICE ) ).getDefaultDisplay();
+		}
+
+		@Override
+		public long nanoTime() {
+			final long now = System.nanoTime();
+			if ( ( now - this.mFrameTimeNanos ) < this.mFrameIntervalNanos ) {
+				// A frame is being produced, compute for its presentation.
+				return this.mFrameTimeNanos + this.mFrameIntervalNanos;
 			}
-			this.mArgs[ 0 ] = value;
-			this.mBuilder.delete( 0, this.mBuilder.length() );
-			this.mFmt.format( "%02d", this.mArgs );
-			return this.mFmt.toString();
+			return now;
 		}
 
-		private void init( final Locale locale ) {
-			this.mFmt = this.createFormatter( locale );
-			this.mZeroDigit = TwoDigitFormatter.getZeroDigit( locale );
+		/**
+		 * Requests the next frame unless it is requested already.
+		 */
+		void postFrame() {
+			if ( this.mFramePosted ) {
+				return;
+			}
+			if ( ( System.nanoTime() - this.mFrameTimeNanos ) >= this.mFrameIntervalNanos ) {
+				// A new animation starts, the refresh rate may have changed.
+				final float refreshRate = this.getDisplay().getRefreshRate();
+				if ( refreshRate > 0 ) {
+					this.mFrameIntervalNanos = (long) ( 1000000000L / refreshRate );
+				}
+			}
+			this.mFramePosted = true;
+			Choreographer.getInstance().postFrameCallback( this );
 		}
 	}
 
+	/**
+	 * Interface used to provide the labels displayed instead of the values
+	 * one at a time, when they are needed, instead of as an array holding
+	 * all of them.
+	 */
+	public interface ValueLabelProvider {
+
+		/**
+		 * Returns the label of a value.
+		 * 
+		 * @param index
+		 *            The index of the value, which is the value minus
+		 *            {@link NumberPicker#getMinValue()} divided by
+		 *            {@link NumberPicker#getStep()}.
+		 * @return The label.
+		 */
+		public String getLabel( int index );
+
+		/**
+		 * Finds the value whose label matches typed text.
+		 * 
+		 * @param text
+		 *            The typed text.
+		 * @param prefix
+		 *            Whether to match labels starting with <code>text</code>
+		 *            instead of equal to it.
+		 * @return The index of the first value whose label matches
+		 *         <code>text</code> ignoring case, or -1 if there is none.
+		 */
+		public int indexOfLabel( String text, boolean prefix );
+	}
+
+	/**
+	 * A {@link ValueLabelProvider} that knows how wide its widest label is,
+	 * so that the picker does not have to measure its labels.
+	 */
+	public interface MeasuredValueLabelProvider extends ValueLabelProvider {
+
+		/**
+		 * Returns the width of the widest label.
+		 * 
+		 * @param paint
+		 *            The paint the labels are drawn with.
+		 * @return The width in pixels.
+		 */
+		public float getMaxLabelWidth( Paint paint );
+	}
+
+	/**
+	 * The frame interval assumed until the refresh rate is read, that of a
+	 * 60 Hz display.
+	 */
+	private static final long DEFAULT_FRAME_INTERVAL_NANOS = 16666667L;
+
+	/**
+	 * The API level of Android 4.2, Build.VERSION_CODES.JELLY_BEAN_MR1, which
+	 * is above the platform the library is compiled against.
+	 */
+	private static final int JELLY_BEAN_MR1 = 17;
+
 	/**
 	 * The number of items show in the selector wheel.
 	 */
@@ -1058,6 +1512,11 @@ public class NumberPicker extends LinearLayout {
 	 */
 	private static final float TOP_AND_BOTTOM_FADING_EDGE_STRENGTH = 0.9f;
 
+	/**
+	 * The opacity of disabled values relative to enabled ones.
+	 */
+	private static final float DISABLED_VALUE_ALPHA = 0.3f;
+
 	/**
 	 * The default unscaled height of the selection divider.
 	 */
@@ -1078,11 +1537,90 @@ public class NumberPicker extends LinearLayout {
 	 */
 	private static final int SIZE_UNSPECIFIED = -1;
 
+	/**
+	 * The number of values on either side of a missing label that are
+	 * formatted together on the label executor.
+	 */
+	private static final int BACKGROUND_FORMAT_RADIUS = 16;
+
+	/**
+	 * The label drawn by default while its formatting is in progress.
+	 */
+	private static final String DEFAULT_LABEL_PLACEHOLDER = "\u2026";
+
+	/**
+	 * The default number of labels kept in the label cache.
+	 */
+	private static final int DEFAULT_LABEL_CACHE_CAPACITY = 64;
+
+	/**
+	 * The min number of pages of a paged label source kept in memory, enough
+	 * for the shown values and the pages loaded ahead of them.
+	 */
+	private static final int MIN_LABEL_PAGE_COUNT = 4;
+
+	/**
+	 * The initial capacity of the label buffer of a selector wheel item.
+	 */
+	private static final int DEFAULT_LABEL_CAPACITY = 16;
+
 	private static final TwoDigitFormatter sTwoDigitFormatter =
 			new TwoDigitFormatter();
 
-	static private String formatNumberWithLocale( final int value ) {
-		return String.format( Locale.getDefault(), "%d", value );
+	/**
+	 * The renderer for numbers when no {@link Formatter} is set. It is only
+	 * accessed from the UI thread.
+	 */
+	private static final DigitFormatter sDigitFormatter = new DigitFormatter(
+			Locale.getDefault() );
+
+	/**
+	 * Returns the index of the greatest of the sorted <code>values</code> not
+	 * greater than <code>value</code>, or -1 if there is none.
+	 */
+	private static int floorIndex( final int[] values, final long value ) {
+		if ( value < Integer.MIN_VALUE ) {
+			return -1;
+		}
+		final int index =
+				Arrays.binarySearch( values, (int) Math.min( value,
+						Integer.MAX_VALUE ) );
+		return ( index >= 0 ) ? index : -index - 2;
+	}
+
+	static private String formatNumberWithLocale( final long value,
+			final int scale ) {
+		return NumberPicker.sDigitFormatter.format( value, scale );
+	}
+
+	/**
+	 * Returns whether <code>value</code> fits in an int, which is required
+	 * for it to be passed to a {@link Formatter}.
+	 */
+	private static boolean isIntValue( final long value ) {
+		return value == (int) value;
+	}
+
+	/**
+	 * Returns whether <code>c</code> is '-' or the minus sign of the locale.
+	 */
+	private static boolean isMinusSign( final char c ) {
+		return ( c == '-' ) || ( c == NumberPicker.sDigitFormatter.getMinusSign() );
+	}
+
+	/**
+	 * Reloads the locale dependent state shared by all pickers if
+	 * <code>locale</code> differs from the one currently in use.
+	 *
+	 * @return Whether the locale changed.
+	 */
+	private static boolean onLocaleChanged( final Locale locale ) {
+		if ( locale.equals( NumberPicker.sDigitFormatter.getLocale() ) ) {
+			return false;
+		}
+		NumberPicker.sDigitFormatter.setLocale( locale );
+		NumberPicker.sTwoDigitFormatter.onLocaleChanged( locale );
+		return true;
 	}
 
 	/**
@@ -1092,6 +1630,22 @@ public class NumberPicker extends LinearLayout {
 		return NumberPicker.sTwoDigitFormatter;
 	}
 
+	/**
+	 * Releases the labels of the shared label pool if <code>level</code>
+	 * indicates memory pressure. On ICS and later this happens automatically;
+	 * on earlier versions call this with
+	 * <code>ComponentCallbacks2.TRIM_MEMORY_COMPLETE</code> from the
+	 * application's <code>onLowMemory()</code>.
+	 * 
+	 * @param level
+	 *            The trim level as passed to
+	 *            <code>ComponentCallbacks2.onTrimMemory(int)</code>.
+	 * @see #setUseSharedLabelPool(boolean)
+	 */
+	public static void trimSharedLabelPool( final int level ) {
+		LabelPool.trimMemory( level );
+	}
+
 	/**
 	 * The increment button.
 	 */
@@ -1158,60 +1712,251 @@ public class NumberPicker extends LinearLayout {
 	private String[] mDisplayedValues;
 
 	/**
-	 * Lower value of the range of numbers allowed for the NumberPicker
+	 * The packed table of values to be displayed instead the indices.
 	 */
-	private int mMinValue;
+	private LabelTable mDisplayedValueTable;
 
 	/**
-	 * Upper value of the range of numbers allowed for the NumberPicker
+	 * The provider of the values to be displayed instead the indices.
 	 */
-	private int mMaxValue;
+	private ValueLabelProvider mValueLabelProvider;
 
 	/**
-	 * Current value of this NumberPicker
+	 * The source of the pages of values to be displayed instead the indices.
 	 */
-	private int mValue;
+	private PagedLabelSource mPagedLabelSource;
 
 	/**
-	 * Listener to be notified upon current value change.
+	 * The pages of {@link #mPagedLabelSource} kept in memory.
 	 */
-	private OnValueChangeListener mOnValueChangeListener;
+	private LabelPager mLabelPager;
 
 	/**
-	 * Listener to be notified upon scroll state change.
+	 * The width of the widest label loaded from {@link #mPagedLabelSource}.
 	 */
-	private OnScrollListener mOnScrollListener;
+	private float mLabelPageMaxWidth;
 
 	/**
-	 * Formatter for for displaying the current value.
+	 * Lower value of the range of numbers allowed for the NumberPicker
 	 */
-	private Formatter mFormatter;
+	private long mMinValue;
 
 	/**
-	 * The speed for updating the value form long press.
+	 * Upper value of the range of numbers allowed for the NumberPicker
 	 */
-	private long mLongPressUpdateInterval =
-			NumberPicker.DEFAULT_LONG_PRESS_UPDATE_INTERVAL;
+	private long mMaxValue;
 
 	/**
-	 * Cache for the string representation of selector indices.
+	 * Current value of this NumberPicker
 	 */
-	private final SparseArray<String> mSelectorIndexToStringCache =
-			new SparseArray<String>();
+	private long mValue;
 
 	/**
-	 * The selector indices whose value are show by the selector.
+	 * The distance between two consecutive selectable values.
 	 */
-	private final int[] mSelectorIndices =
-			new int[ NumberPicker.SELECTOR_WHEEL_ITEM_COUNT ];
+	private int mStep = 1;
 
 	/**
-	 * The {@link Paint} for drawing the selector.
+	 * The sorted values which may be selected, or <code>null</code> if all
+	 * values of the range may.
 	 */
-	private final Paint mSelectorWheelPaint;
+	private int[] mAllowedValues;
 
 	/**
-	 * The {@link Drawable} for pressed virtual (increment/decrement) buttons.
+	 * The index of the first allowed value within the range.
+	 */
+	private int mAllowedFrom;
+
+	/**
+	 * The index of the last allowed value within the range, less than
+	 * {@link #mAllowedFrom} if there is none.
+	 */
+	private int mAllowedTo = -1;
+
+	/**
+	 * The positions of the selectable values which are disabled, or
+	 * <code>null</code> if none ever was.
+	 */
+	private BitSet mDisabledPositions;
+
+	/**
+	 * Listener to be notified upon current value change.
+	 */
+	private OnValueChangeListener mOnValueChangeListener;
+
+	/**
+	 * Listener to be notified of the value a fling will land on.
+	 */
+	private OnValuePredictedListener mOnValuePredictedListener;
+
+	/**
+	 * Listener to be notified upon scroll state change.
+	 */
+	private OnScrollListener mOnScrollListener;
+
+	/**
+	 * Formatter for for displaying the current value.
+	 */
+	private Formatter mFormatter;
+
+	/**
+	 * Appending formatter for displaying the current value.
+	 */
+	private AppendingFormatter mAppendingFormatter;
+
+	/**
+	 * Reused buffer the labels of the selector wheel are formatted into.
+	 */
+	private final StringBuilder mLabelBuilder = new StringBuilder();
+
+	/**
+	 * The speed for updating the value form long press.
+	 */
+	private long mLongPressUpdateInterval =
+			NumberPicker.DEFAULT_LONG_PRESS_UPDATE_INTERVAL;
+
+	/**
+	 * The label cache owned by this picker.
+	 */
+	private final LabelCache mPrivateLabelCache = new LabelCache(
+			NumberPicker.DEFAULT_LABEL_CACHE_CAPACITY );
+
+	/**
+	 * Cache for the labels produced by the {@link Formatter}. It is kept while
+	 * the value changes and invalidated only when the labels themselves do.
+	 * Either {@link #mPrivateLabelCache} or a cache of the shared label pool.
+	 */
+	private LabelCache mLabelCache = this.mPrivateLabelCache;
+
+	/**
+	 * The values around where the current fling lands whose labels are
+	 * pinned, the first {@link #mLandingCount} of them.
+	 */
+	private final long[] mLandingValues =
+			new long[ NumberPicker.SELECTOR_WHEEL_ITEM_COUNT ];
+
+	/**
+	 * The pinned labels of {@link #mLandingValues}, or <code>null</code>
+	 * while they are formatted in the background. They are kept apart from
+	 * the label caches until the fling ends so that the labels of the values
+	 * it scrolls through do not evict them.
+	 */
+	private final String[] mLandingLabels =
+			new String[ NumberPicker.SELECTOR_WHEEL_ITEM_COUNT ];
+
+	/**
+	 * The number of values whose labels are pinned for the current fling.
+	 */
+	private int mLandingCount;
+
+	/**
+	 * Flag whether to use the process wide shared label pool.
+	 */
+	private boolean mUseSharedLabelPool;
+
+	/**
+	 * Executor formatting labels in the background, <code>null</code> to
+	 * format them on the UI thread.
+	 */
+	private Executor mLabelExecutor;
+
+	/**
+	 * The label shown while its formatting on the executor is in progress.
+	 */
+	private String mLabelPlaceholder = NumberPicker.DEFAULT_LABEL_PLACEHOLDER;
+
+	/**
+	 * The text shown before plain numbers.
+	 */
+	private String mLabelPrefix = "";
+
+	/**
+	 * The text shown after plain numbers.
+	 */
+	private String mLabelSuffix = "";
+
+	/**
+	 * The width of {@link #mLabelPrefix} in the selector wheel.
+	 */
+	private float mLabelPrefixWidth;
+
+	/**
+	 * The width of {@link #mLabelSuffix} in the selector wheel.
+	 */
+	private float mLabelSuffixWidth;
+
+	/**
+	 * The number of fraction digits plain numbers are shown with.
+	 */
+	private int mDecimalScale;
+
+	/**
+	 * Incremented whenever the formatted labels become invalid so results of
+	 * background formatting started before can be discarded.
+	 */
+	private int mLabelGeneration;
+
+	/**
+	 * The commands submitted to the label executor which did not complete
+	 * yet.
+	 */
+	private final List<FormatLabelsCommand> mFormatLabelsCommands =
+			new ArrayList<FormatLabelsCommand>();
+
+	/**
+	 * The locale the cached labels were built for.
+	 */
+	private Locale mLabelLocale = Locale.getDefault();
+
+	/**
+	 * The selector indices whose value are show by the selector.
+	 */
+	private final long[] mSelectorIndices =
+			new long[ NumberPicker.SELECTOR_WHEEL_ITEM_COUNT ];
+
+	/**
+	 * Flags whether each selector index is within the range. Indices outside
+	 * of a range starting or ending at the limits of long would wrap, so this
+	 * cannot be told from the index alone.
+	 */
+	private final boolean[] mSelectorIndexInRange =
+			new boolean[ NumberPicker.SELECTOR_WHEEL_ITEM_COUNT ];
+
+	/**
+	 * The characters drawn for each of the selector indices. The buffers are
+	 * moved along with the indices and grow only if a label does not fit.
+	 */
+	private final char[][] mSelectorLabels =
+			new char[ NumberPicker.SELECTOR_WHEEL_ITEM_COUNT ][ NumberPicker.DEFAULT_LABEL_CAPACITY ];
+
+	/**
+	 * The length of the labels in {@link #mSelectorLabels}.
+	 */
+	private final int[] mSelectorLabelLengths =
+			new int[ NumberPicker.SELECTOR_WHEEL_ITEM_COUNT ];
+
+	/**
+	 * The {@link Paint} for drawing the selector.
+	 */
+	private final Paint mSelectorWheelPaint;
+
+	/**
+	 * The {@link Paint} for drawing disabled values on the selector.
+	 */
+	private final Paint mDisabledSelectorWheelPaint;
+
+	/**
+	 * Flag whether numbers are drawn from pre-rendered digit glyphs.
+	 */
+	private boolean mNumericGlyphRendering;
+
+	/**
+	 * The digit glyphs numbers are drawn from, created on first use.
+	 */
+	private DigitGlyphAtlas mDigitGlyphAtlas;
+
+	/**
+	 * The {@link Drawable} for pressed virtual (increment/decrement) buttons.
 	 */
 	private final Drawable mVirtualButtonPressedDrawable;
 
@@ -1240,6 +1985,13 @@ public class NumberPicker extends LinearLayout {
 	 */
 	private final Scroller mAdjustScroller;
 
+	/**
+	 * The clock driving the scrollers from the vsync signal, or
+	 * <code>null</code> before Jelly Bean where the scrollers advance with
+	 * each redraw.
+	 */
+	private VsyncClock mVsyncClock;
+
 	/**
 	 * The previous Y coordinate while scrolling the selector.
 	 */
@@ -1391,6 +2143,11 @@ public class NumberPicker extends LinearLayout {
 			'\u06f0', '\u06f1', '\u06f2', '\u06f3', '\u06f4', '\u06f5',
 			'\u06f6', '\u06f7', '\u06f8', '\u06f9' };
 
+	/**
+	 * The filters of the input text while a label is set programmatically.
+	 */
+	private static final InputFilter[] NO_INPUT_FILTERS = new InputFilter[ 0 ];
+
 	/**
 	 * Utility to reconcile a desired size and state, with constraints imposed
 	 * by a MeasureSpec. Will take the desired size, unless a different size is
@@ -1662,12 +2419,19 @@ public class NumberPicker extends LinearLayout {
 				colors.getColorForState( View.ENABLED_STATE_SET, Color.WHITE );
 		paint.setColor( color );
 		this.mSelectorWheelPaint = paint;
+		this.mDisabledSelectorWheelPaint = new Paint( paint );
+		this.mDisabledSelectorWheelPaint.setAlpha( (int) ( paint.getAlpha() * NumberPicker.DISABLED_VALUE_ALPHA ) );
 
 		// create the fling and adjust scrollers
 		this.mFlingScroller = new Scroller( this.getContext(), null, true );
 		this.mAdjustScroller =
 				new Scroller( this.getContext(), new DecelerateInterpolator(
 						2.5f ) );
+		if ( Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN ) {
+			this.mVsyncClock = new VsyncClock();
+			this.mFlingScroller.setTimeSource( this.mVsyncClock );
+			this.mAdjustScroller.setTimeSource( this.mVsyncClock );
+		}
 
 		this.updateInputTextView();
 
@@ -1680,9 +2444,43 @@ public class NumberPicker extends LinearLayout {
 		}
 	}
 
+	/**
+	 * Returns <code>value</code> moved down to the closest selectable value,
+	 * or unchanged if it is not above the min value. Values below the first
+	 * allowed value are moved up to it.
+	 */
+	private long alignToStep( final long value ) {
+		if ( this.usesAllowedValues() ) {
+			final int index =
+					NumberPicker.floorIndex( this.mAllowedValues, value );
+			return this.mAllowedValues[ Math.max( this.mAllowedFrom,
+					Math.min( index, this.mAllowedTo ) ) ];
+		}
+		if ( value <= this.mMinValue ) {
+			return value;
+		}
+		return value
+				- WheelMath.remainderUnsigned( value - this.mMinValue, this.mStep );
+	}
+
+	/**
+	 * Returns whether the selectable value <code>value</code> moved by
+	 * <code>delta</code> steps is still within the range. A range whose min
+	 * value was set above its max value, until the max value follows, is
+	 * empty.
+	 */
+	private boolean canStep( final long value, final long delta ) {
+		if ( !this.usesAllowedValues() && ( this.mMaxValue < this.mMinValue ) ) {
+			return false;
+		}
+		return WheelMath.canAdd( this.toPosition( value ), delta, 0,
+				this.getLastPosition() );
+	}
+
 	/**
 	 * Changes the current value by one which is increment or decrement based on
-	 * the passes argument. decrement the current value.
+	 * the passes argument. decrement the current value. Disabled values are
+	 * skipped.
 	 * 
 	 * @param increment
 	 *            True to increment, false to decrement.
@@ -1694,22 +2492,24 @@ public class NumberPicker extends LinearLayout {
 				this.moveToFinalScrollerPosition( this.mAdjustScroller );
 			}
 			this.mPreviousScrollerY = 0;
+			// Disabled values are scrolled past.
+			final int distance =
+					this.toScrollDistance( this.stepsToEnabled( this.mValue,
+							increment ? 1 : -1, Long.MAX_VALUE ) );
 			if ( increment ) {
-				this.mFlingScroller.startScroll( 0, 0, 0,
-						-this.mSelectorElementHeight,
+				this.mFlingScroller.startScroll( 0, 0, 0, -distance,
 						NumberPicker.SNAP_SCROLL_DURATION );
 			} else {
-				this.mFlingScroller.startScroll( 0, 0, 0,
-						this.mSelectorElementHeight,
+				this.mFlingScroller.startScroll( 0, 0, 0, distance,
 						NumberPicker.SNAP_SCROLL_DURATION );
 			}
 			this.invalidate();
 		} else {
-			if ( increment ) {
-				this.setValueInternal( this.mValue + 1, true );
-			} else {
-				this.setValueInternal( this.mValue - 1, true );
-			}
+			final int direction = increment ? 1 : -1;
+			this.setValueInternal(
+					this.stepValue( this.mValue, direction
+							* this.stepsToEnabled( this.mValue, direction,
+									Long.MAX_VALUE ) ), true );
 		}
 	}
 
@@ -1731,6 +2531,8 @@ public class NumberPicker extends LinearLayout {
 		this.mPreviousScrollerY = currentScrollerY;
 		if ( scroller.isFinished() ) {
 			this.onScrollerFinished( scroller );
+		} else if ( this.mVsyncClock != null ) {
+			this.mVsyncClock.postFrame();
 		} else {
 			this.invalidate();
 		}
@@ -1740,17 +2542,19 @@ public class NumberPicker extends LinearLayout {
 	 * Decrements the <code>selectorIndices</code> whose string representations
 	 * will be displayed in the selector.
 	 */
-	private void decrementSelectorIndices( final int[] selectorIndices ) {
+	private void decrementSelectorIndices( final long[] selectorIndices ) {
+		final char[][] selectorLabels = this.mSelectorLabels;
+		final int[] selectorLabelLengths = this.mSelectorLabelLengths;
+		final boolean[] selectorIndexInRange = this.mSelectorIndexInRange;
+		final char[] recycledLabel = selectorLabels[ selectorIndices.length - 1 ];
 		for ( int i = selectorIndices.length - 1; i > 0; i-- ) {
 			selectorIndices[ i ] = selectorIndices[ i - 1 ];
+			selectorLabels[ i ] = selectorLabels[ i - 1 ];
+			selectorLabelLengths[ i ] = selectorLabelLengths[ i - 1 ];
+			selectorIndexInRange[ i ] = selectorIndexInRange[ i - 1 ];
 		}
-		int nextScrollSelectorIndex = selectorIndices[ 1 ] - 1;
-		if ( this.mWrapSelectorWheel
-				&& ( nextScrollSelectorIndex < this.mMinValue ) ) {
-			nextScrollSelectorIndex = this.mMaxValue;
-		}
-		selectorIndices[ 0 ] = nextScrollSelectorIndex;
-		this.ensureCachedScrollSelectorValue( nextScrollSelectorIndex );
+		selectorLabels[ 0 ] = recycledLabel;
+		this.fillSelectorIndex( selectorIndices, 0 );
 	}
 
 	@SuppressLint( "NewApi" )
@@ -1832,8 +2636,8 @@ public class NumberPicker extends LinearLayout {
 			switch ( event.getAction() ) {
 			case KeyEvent.ACTION_DOWN:
 				if ( this.mWrapSelectorWheel
-						|| ( keyCode == KeyEvent.KEYCODE_DPAD_DOWN ) ? this.getValue() < this.getMaxValue()
-						: this.getValue() > this.getMinValue() ) {
+						|| ( keyCode == KeyEvent.KEYCODE_DPAD_DOWN ) ? this.getLongValue() < this.getLongMaxValue()
+						: this.getLongValue() > this.getLongMinValue() ) {
 					this.requestFocus();
 					this.mLastHandledDownDpadKeyCode = keyCode;
 					this.removeAllCallbacks();
@@ -1879,46 +2683,80 @@ public class NumberPicker extends LinearLayout {
 	}
 
 	/**
-	 * Ensures we have a cached string representation of the given <code>
-	 * selectorIndex</code> to avoid multiple instantiations of the same string.
+	 * Draws the label of the selector wheel item at <code>slot</code> centered
+	 * on <code>x</code> with <code>paint</code>, its digits from
+	 * <code>atlas</code> and the affixes of the label template as text at
+	 * their cached widths.
+	 * 
+	 * @return Whether the label was drawn, which is not the case if its
+	 *         digits have chars without a glyph.
 	 */
-	private void ensureCachedScrollSelectorValue( final int selectorIndex ) {
-		final SparseArray<String> cache = this.mSelectorIndexToStringCache;
-		String scrollSelectorValue = cache.get( selectorIndex );
-		if ( scrollSelectorValue != null ) {
-			return;
+	private boolean drawSelectorLabelGlyphs( final Canvas canvas,
+			final DigitGlyphAtlas atlas, final int slot, final float x,
+			final float y, final Paint paint ) {
+		final char[] label = this.mSelectorLabels[ slot ];
+		final int length = this.mSelectorLabelLengths[ slot ];
+		if ( !this.usesLabelTemplate() ) {
+			return atlas.draw( canvas, label, 0, length, x, y, paint );
 		}
-		if ( ( selectorIndex < this.mMinValue )
-				|| ( selectorIndex > this.mMaxValue ) ) {
-			scrollSelectorValue = "";
-		} else {
-			if ( this.mDisplayedValues != null ) {
-				final int displayedValueIndex = selectorIndex - this.mMinValue;
-				scrollSelectorValue =
-						this.mDisplayedValues[ displayedValueIndex ];
-			} else {
-				scrollSelectorValue = this.formatNumber( selectorIndex );
-			}
+		final int prefixLength = this.mLabelPrefix.length();
+		final int suffixLength = this.mLabelSuffix.length();
+		final int digitCount = length - prefixLength - suffixLength;
+		final float digitsWidth = atlas.measure( label, prefixLength, digitCount );
+		if ( digitsWidth < 0 ) {
+			return false;
+		}
+		// The wheel paint is center aligned.
+		float left =
+				x - ( ( this.mLabelPrefixWidth + digitsWidth + this.mLabelSuffixWidth ) / 2 );
+		if ( prefixLength > 0 ) {
+			canvas.drawText( label, 0, prefixLength, left
+					+ ( this.mLabelPrefixWidth / 2 ), y, paint );
 		}
-		cache.put( selectorIndex, scrollSelectorValue );
+		left += this.mLabelPrefixWidth;
+		atlas.draw( canvas, label, prefixLength, digitCount, left
+				+ ( digitsWidth / 2 ), y, paint );
+		left += digitsWidth;
+		if ( suffixLength > 0 ) {
+			canvas.drawText( label, length - suffixLength, suffixLength, left
+					+ ( this.mLabelSuffixWidth / 2 ), y, paint );
+		}
+		return true;
 	}
 
 	/**
 	 * Ensures that the scroll wheel is adjusted i.e. there is no offset and the
-	 * middle element is in the middle of the widget.
+	 * middle element is in the middle of the widget. If the middle element is
+	 * disabled the wheel is scrolled on to the closest enabled one.
 	 * 
 	 * @return Whether an adjustment has been made.
 	 */
 	private boolean ensureScrollWheelAdjusted() {
 		// adjust to the closest value
 		int deltaY = this.mInitialScrollOffset - this.mCurrentScrollOffset;
+		long target = this.mSelectorIndices[ NumberPicker.SELECTOR_MIDDLE_ITEM_INDEX ];
+		if ( Math.abs( deltaY ) > ( this.mSelectorElementHeight / 2 ) ) {
+			final int direction = ( deltaY > 0 ) ? 1 : -1;
+			deltaY -= direction * this.mSelectorElementHeight;
+			if ( this.mWrapSelectorWheel || this.canStep( target, direction ) ) {
+				target = this.stepValue( target, direction );
+			}
+		}
+		// settle on the closest enabled value
+		if ( !this.isValueEnabled( target ) ) {
+			// Values below are scanned one at a time, only as far as up.
+			final long up = this.stepsToEnabled( target, 1, Long.MAX_VALUE );
+			final long down =
+					this.stepsToEnabled( target, -1, ( up != 0 ) ? up - 1
+							: Long.MAX_VALUE );
+			if ( ( up != 0 ) && ( ( down == 0 ) || ( up <= down ) ) ) {
+				deltaY -= this.toScrollDistance( up );
+			} else if ( down != 0 ) {
+				deltaY += this.toScrollDistance( down );
+			}
+		}
 		if ( deltaY != 0 ) {
 			this.mPreviousScrollerY = 0;
-			if ( Math.abs( deltaY ) > ( this.mSelectorElementHeight / 2 ) ) {
-				deltaY +=
-						( deltaY > 0 ) ? -this.mSelectorElementHeight
-								: this.mSelectorElementHeight;
-			}
 			this.mAdjustScroller.startScroll( 0, 0, 0, deltaY,
 					NumberPicker.SELECTOR_ADJUSTMENT_DURATION_MILLIS );
 			this.invalidate();
@@ -1927,6 +2765,171 @@ public class NumberPicker extends LinearLayout {
 		return false;
 	}
 
+	/**
+	 * Extends the range of the picker to <code>minValue</code> and
+	 * <code>maxValue</code>, for ranges growing while the picker is shown such
+	 * as a year picker extending as the user nears its end or a live
+	 * counter. Unlike {@link #setLongMinValue(long)} and
+	 * {@link #setLongMaxValue(long)} this keeps the formatted labels and the
+	 * disabled values, refills only the selector wheel items that were past
+	 * an end of the range and measures the max width again only if the
+	 * number of digits grew. Labels of a {@link ValueLabelProvider} or a
+	 * {@link PagedLabelSource} move with the min value, so if it moves every
+	 * item and the input text are refilled. The value and the wrapping of the
+	 * selector wheel are left as they are.
+	 * <p>
+	 * Note: If the min value moves by a distance which is not a multiple of
+	 * the step, every value moves to another position and the picker is
+	 * reinitialized as by {@link #setLongMinValue(long)}. Displayed values
+	 * set as an array or a table must be replaced to match the new range.
+	 * </p>
+	 * 
+	 * @param minValue
+	 *            The new min value, not greater than the current one.
+	 * @param maxValue
+	 *            The new max value, not less than the current one.
+	 */
+	public void extendRange( final long minValue, final long maxValue ) {
+		if ( ( minValue > this.mMinValue ) || ( maxValue < this.mMaxValue ) ) {
+			throw new IllegalArgumentException(
+					"range must contain the current range" );
+		}
+		if ( ( minValue == this.mMinValue ) && ( maxValue == this.mMaxValue ) ) {
+			return;
+		}
+		final boolean positionsMove =
+				!this.usesAllowedValues()
+						&& ( ( this.mAllowedValues != null ) || ( WheelMath.remainderUnsigned(
+								this.mMinValue - minValue, this.mStep ) != 0 ) );
+		if ( positionsMove ) {
+			this.setLongMaxValue( maxValue );
+			this.setLongMinValue( minValue );
+			return;
+		}
+		final DigitFormatter digits = NumberPicker.sDigitFormatter;
+		final int digitCount =
+				Math.max( digits.render( this.mMinValue, 0, this.mDecimalScale ),
+						digits.render( this.mMaxValue, 0, this.mDecimalScale ) );
+		final long firstValue = this.toValue( 0 );
+		final long lastPosition = this.getLastPosition();
+		this.mMinValue = minValue;
+		this.mMaxValue = maxValue;
+		this.updateAllowedRange();
+		final long shift = this.toPosition( firstValue );
+		this.shiftPositions( shift, lastPosition );
+		// Labels looked up by position moved along with the values.
+		final boolean labelsMoved =
+				( shift != 0 )
+						&& ( ( this.mValueLabelProvider != null )
+								|| ( this.mPagedLabelSource != null ) );
+
+		final long[] selectorIndices = this.mSelectorIndices;
+		final long middle =
+				selectorIndices[ NumberPicker.SELECTOR_MIDDLE_ITEM_INDEX ];
+		boolean refilled = false;
+		for ( int i = 0; i < selectorIndices.length; i++ ) {
+			final int delta = i - NumberPicker.SELECTOR_MIDDLE_ITEM_INDEX;
+			final boolean wrapped =
+					( ( delta > 0 ) && ( selectorIndices[ i ] <= middle ) )
+							|| ( ( delta < 0 ) && ( selectorIndices[ i ] >= middle ) );
+			if ( labelsMoved || !this.mSelectorIndexInRange[ i ] || wrapped ) {
+				this.fillSelectorIndex( selectorIndices, i );
+				refilled = true;
+			}
+		}
+		if ( labelsMoved ) {
+			this.updateInputTextView();
+		}
+		if ( ( Math.max( digits.render( minValue, 0, this.mDecimalScale ),
+				digits.render( maxValue, 0, this.mDecimalScale ) ) > digitCount )
+				|| ( this.mValueLabelProvider != null ) ) {
+			this.tryComputeMaxWidth();
+		}
+		if ( refilled ) {
+			this.invalidate();
+		}
+	}
+
+	/**
+	 * Sets the selector index at <code>slot</code> from its distance in steps
+	 * to the middle one, which always is within the range, and fills its
+	 * label.
+	 */
+	private void fillSelectorIndex( final long[] selectorIndices,
+			final int slot ) {
+		final long middle =
+				selectorIndices[ NumberPicker.SELECTOR_MIDDLE_ITEM_INDEX ];
+		final int delta = slot - NumberPicker.SELECTOR_MIDDLE_ITEM_INDEX;
+		final boolean inRange =
+				this.mWrapSelectorWheel || this.canStep( middle, delta );
+		selectorIndices[ slot ] =
+				inRange ? this.stepValue( middle, delta ) : middle
+						+ ( (long) delta * this.mStep );
+		this.mSelectorIndexInRange[ slot ] = inRange;
+		this.fillSelectorLabel( slot, selectorIndices[ slot ] );
+	}
+
+	/**
+	 * Fills the label buffer of the selector wheel item at <code>slot</code>
+	 * with the representation of <code>selectorIndex</code>. Labels of a
+	 * displayed value table are copied from it, plain numbers are rendered
+	 * by the digit formatter between the affixes of the label template, as are
+	 * values outside of the int range, labels of an {@link AppendingFormatter} are
+	 * appended into the reused label builder and everything else is taken from
+	 * the string cache.
+	 */
+	private void fillSelectorLabel( final int slot, final long selectorIndex ) {
+		final StringBuilder builder = this.mLabelBuilder;
+		builder.setLength( 0 );
+		final boolean inRange = this.mSelectorIndexInRange[ slot ];
+		if ( inRange && ( this.mDisplayedValueTable != null ) ) {
+			final int index = (int) this.toPosition( selectorIndex );
+			final int length = this.mDisplayedValueTable.getLength( index );
+			if ( this.mSelectorLabels[ slot ].length < length ) {
+				this.mSelectorLabels[ slot ] = new char[ length ];
+			}
+			this.mDisplayedValueTable.getChars( index,
+					this.mSelectorLabels[ slot ], 0 );
+			this.mSelectorLabelLengths[ slot ] = length;
+			return;
+		}
+		final boolean intValue = NumberPicker.isIntValue( selectorIndex );
+		if ( inRange && !this.hasDisplayedValues()
+				&& ( ( this.mFormatter == null ) || !intValue ) ) {
+			if ( ( this.mAppendingFormatter == null ) || !intValue ) {
+				final DigitFormatter digits = NumberPicker.sDigitFormatter;
+				final int digitCount =
+						digits.render( selectorIndex, 0, this.mDecimalScale );
+				final boolean template = this.usesLabelTemplate();
+				final String prefix = template ? this.mLabelPrefix : "";
+				final String suffix = template ? this.mLabelSuffix : "";
+				final int length =
+						prefix.length() + digitCount + suffix.length();
+				if ( this.mSelectorLabels[ slot ].length < length ) {
+					this.mSelectorLabels[ slot ] = new char[ length ];
+				}
+				final char[] label = this.mSelectorLabels[ slot ];
+				prefix.getChars( 0, prefix.length(), label, 0 );
+				System.arraycopy( digits.getBuffer(), digits.getStart(), label,
+						prefix.length(), digitCount );
+				suffix.getChars( 0, suffix.length(), label, prefix.length()
+						+ digitCount );
+				this.mSelectorLabelLengths[ slot ] = length;
+				return;
+			}
+			this.mAppendingFormatter.format( (int) selectorIndex, builder );
+		} else if ( inRange ) {
+			// Formatted strings come from the label cache.
+			builder.append( this.getLabel( selectorIndex ) );
+		}
+		final int length = builder.length();
+		if ( this.mSelectorLabels[ slot ].length < length ) {
+			this.mSelectorLabels[ slot ] = new char[ length ];
+		}
+		builder.getChars( 0, length, this.mSelectorLabels[ slot ], 0 );
+		this.mSelectorLabelLengths[ slot ] = length;
+	}
+
 	/**
 	 * Flings the selector with the given <code>velocityY</code>.
 	 */
@@ -1940,13 +2943,49 @@ public class NumberPicker extends LinearLayout {
 			this.mFlingScroller.fling( 0, Integer.MAX_VALUE, 0, velocityY, 0,
 					0, 0, Integer.MAX_VALUE );
 		}
+		this.snapFling( velocityY );
 
 		this.invalidate();
 	}
 
-	private String formatNumber( final int value ) {
-		return ( this.mFormatter != null ) ? this.mFormatter.format( value )
-				: NumberPicker.formatNumberWithLocale( value );
+	/**
+	 * Returns the string representation of the plain number
+	 * <code>value</code>. With a label executor, labels of the
+	 * {@link Formatter} missing from the cache are the placeholder while they
+	 * are formatted in the background if <code>placeholder</code> is set, and
+	 * are formatted on the calling thread otherwise.
+	 */
+	private String formatNumber( final long value, final boolean placeholder ) {
+		final boolean intValue = NumberPicker.isIntValue( value );
+		if ( ( this.mFormatter != null ) && intValue ) {
+			String label = this.mLabelCache.get( value );
+			if ( label != null ) {
+				return label;
+			}
+			if ( placeholder && ( this.mLabelExecutor != null )
+					&& this.requestBackgroundLabels( (int) value ) ) {
+				return this.mLabelPlaceholder;
+			}
+			label = this.mFormatter.format( (int) value );
+			this.mLabelCache.put( value, label );
+			return label;
+		}
+		if ( ( this.mAppendingFormatter != null ) && intValue ) {
+			final StringBuilder builder = this.mLabelBuilder;
+			builder.setLength( 0 );
+			this.mAppendingFormatter.format( (int) value, builder );
+			return builder.toString();
+		}
+		if ( this.usesLabelTemplate() ) {
+			final StringBuilder builder = this.mLabelBuilder;
+			builder.setLength( 0 );
+			builder.append( this.mLabelPrefix );
+			NumberPicker.sDigitFormatter.appendTo( value, this.mDecimalScale,
+					builder );
+			builder.append( this.mLabelSuffix );
+			return builder.toString();
+		}
+		return NumberPicker.formatNumberWithLocale( value, this.mDecimalScale );
 	}
 
 	@SuppressLint( "NewApi" )
@@ -1962,11 +3001,58 @@ public class NumberPicker extends LinearLayout {
 		return this.mAccessibilityNodeProvider.mProvider;
 	}
 
+	/**
+	 * Gets the values which may be selected.
+	 * 
+	 * @return The allowed values, or <code>null</code> if all values of the
+	 *         range may be selected.
+	 * @see #setAllowedValues(int[])
+	 */
+	public int[] getAllowedValues() {
+		return this.mAllowedValues;
+	}
+
 	@Override
 	protected float getBottomFadingEdgeStrength() {
 		return NumberPicker.TOP_AND_BOTTOM_FADING_EDGE_STRENGTH;
 	}
 
+	/**
+	 * Gets the number of fraction digits plain numbers are shown with.
+	 * 
+	 * @return The decimal scale.
+	 * @see #setDecimalScale(int)
+	 */
+	public int getDecimalScale() {
+		return this.mDecimalScale;
+	}
+
+	/**
+	 * Returns the selectable values which are disabled, or <code>null</code>
+	 * if there are none, so that they can be disabled again by value after
+	 * the positions changed.
+	 */
+	private long[] getDisabledValues() {
+		final BitSet disabledPositions = this.mDisabledPositions;
+		if ( ( disabledPositions == null ) || disabledPositions.isEmpty() ) {
+			return null;
+		}
+		final long lastPosition = this.getLastPosition();
+		final long[] values = new long[ disabledPositions.cardinality() ];
+		int count = 0;
+		for ( int i = disabledPositions.nextSetBit( 0 ); ( i >= 0 )
+				&& !WheelMath.lessUnsigned( lastPosition, i ); i =
+				disabledPositions.nextSetBit( i + 1 ) ) {
+			values[ count++ ] = this.toValue( i );
+		}
+		if ( count == values.length ) {
+			return values;
+		}
+		final long[] inRange = new long[ count ];
+		System.arraycopy( values, 0, inRange, 0, count );
+		return inRange;
+	}
+
 	/**
 	 * Gets the values to be displayed instead of string values.
 	 * 
@@ -1977,51 +3063,248 @@ public class NumberPicker extends LinearLayout {
 	}
 
 	/**
-	 * Returns the max value of the picker.
+	 * Gets the table of values to be displayed instead of string values.
 	 * 
-	 * @return The max value.
+	 * @return The displayed value table.
 	 */
-	public int getMaxValue() {
-		return this.mMaxValue;
+	public LabelTable getDisplayedValueTable() {
+		return this.mDisplayedValueTable;
 	}
 
 	/**
-	 * Returns the min value of the picker.
+	 * Gets the model of the motion of the selector wheel when flung.
 	 * 
-	 * @return The min value
+	 * @return The fling physics.
+	 * @see #setFlingPhysics(FlingPhysics)
 	 */
-	public int getMinValue() {
-		return this.mMinValue;
+	public FlingPhysics getFlingPhysics() {
+		return this.mFlingScroller.getFlingPhysics();
 	}
 
 	/**
-	 * @return The selected index given its displayed <code>value</code>.
+	 * Returns the string representation of <code>value</code>, which must be
+	 * within the range, from the displayed values if provided or the
+	 * formatter otherwise. Labels of a {@link ValueLabelProvider} are cached,
+	 * labels of a {@link PagedLabelSource} are the placeholder until their
+	 * page is loaded.
 	 */
-	private int getSelectedPos( String value ) {
-		int bestMatchPosition = this.mMinValue;
+	private String getLabel( final long value ) {
+		return this.getLabel( value, true );
+	}
 
-		if ( this.mDisplayedValues == null ) {
-			try {
-				bestMatchPosition = Integer.parseInt( value );
-			} catch ( final NumberFormatException numberFormatException ) {
-				// Ignore as if it's not a number we don't care
+	/**
+	 * Returns the string representation of <code>value</code> as
+	 * {@link #getLabel(long)} does. Unless <code>placeholder</code> is set,
+	 * labels of the {@link Formatter} are formatted on the calling thread
+	 * rather than in the background and labels of a {@link PagedLabelSource}
+	 * still loading are <code>null</code>, for the input text and
+	 * accessibility which show a single label and are not redrawn with the
+	 * selector wheel.
+	 */
+	private String getLabel( final long value, final boolean placeholder ) {
+		final long position = this.toPosition( value );
+		if ( ( this.mPagedLabelSource != null )
+				&& !WheelMath.lessUnsigned( Integer.MAX_VALUE, position ) ) {
+			String label = this.mLabelPager.get( position );
+			if ( label == null ) {
+				this.requestLabelPages( position );
+				label = this.mLabelPager.get( position );
 			}
-		} else {
-			value = value.toLowerCase();
-
-			for ( int i = 0; i < this.mDisplayedValues.length; ++i ) {
-				// Don't force the user to type in jan when ja will do
-				final String currentDisplayedValue =
-						this.mDisplayedValues[ i ].toLowerCase();
+			if ( label != null ) {
+				return label;
+			}
+			return placeholder ? this.mLabelPlaceholder : null;
+		}
+		final String landingLabel = this.getLandingLabel( value );
+		if ( landingLabel != null ) {
+			return landingLabel;
+		}
+		if ( this.mValueLabelProvider != null ) {
+			String label = this.mPrivateLabelCache.get( value );
+			if ( label == null ) {
+				label =
+						this.mValueLabelProvider.getLabel( (int) this.toPosition( value ) );
+				this.mPrivateLabelCache.put( value, label );
+			}
+			return label;
+		}
+		if ( this.mDisplayedValueTable != null ) {
+			return this.mDisplayedValueTable.getLabel( (int) this.toPosition( value ) );
+		}
+		if ( this.mDisplayedValues != null ) {
+			return this.mDisplayedValues[ (int) this.toPosition( value ) ];
+		}
+		return this.formatNumber( value, placeholder );
+	}
 
-				if ( value.equals( currentDisplayedValue ) ) {
-					bestMatchPosition = this.mMinValue + i;
+	/**
+	 * Returns the number of label lookups that were served by the label
+	 * cache.
+	 * 
+	 * @return The hit count.
+	 * @see #setLabelCacheCapacity(int)
+	 */
+	public long getLabelCacheHitCount() {
+		return this.mLabelCache.getHitCount();
+	}
+
+	/**
+	 * Returns the number of label lookups that had to invoke the
+	 * {@link Formatter}.
+	 * 
+	 * @return The miss count.
+	 * @see #setLabelCacheCapacity(int)
+	 */
+	public long getLabelCacheMissCount() {
+		return this.mLabelCache.getMissCount();
+	}
+
+	/**
+	 * Returns the number of labels in the page of the paged label source
+	 * starting at index <code>first</code>.
+	 */
+	private int getLabelPageLength( final long first ) {
+		return (int) Math.min( this.mLabelPager.getPageSize(),
+				( this.getLastLabelPageIndex() - first ) + 1 );
+	}
+
+	/**
+	 * Returns the label of <code>value</code> pinned for the current fling,
+	 * or <code>null</code> if there is none.
+	 */
+	private String getLandingLabel( final long value ) {
+		for ( int i = 0; i < this.mLandingCount; i++ ) {
+			if ( this.mLandingValues[ i ] == value ) {
+				return this.mLandingLabels[ i ];
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Returns the last index a {@link PagedLabelSource} can load labels for,
+	 * which is the last position unless it does not fit in an int.
+	 */
+	private long getLastLabelPageIndex() {
+		final long lastPosition = this.getLastPosition();
+		return WheelMath.lessUnsigned( Integer.MAX_VALUE, lastPosition )
+				? Integer.MAX_VALUE : lastPosition;
+	}
+
+	/**
+	 * Returns the position of the last selectable value, which is the max
+	 * value if it is a whole number of steps above the min value or allowed.
+	 */
+	private long getLastPosition() {
+		if ( this.usesAllowedValues() ) {
+			return this.mAllowedTo - this.mAllowedFrom;
+		}
+		return WheelMath.divideUnsigned( this.mMaxValue - this.mMinValue,
+				this.mStep );
+	}
+
+	/**
+	 * Returns the max value of the picker.
+	 * 
+	 * @return The max value.
+	 * @see #setLongMaxValue(long)
+	 */
+	public long getLongMaxValue() {
+		return this.mMaxValue;
+	}
+
+	/**
+	 * Returns the min value of the picker.
+	 * 
+	 * @return The min value.
+	 * @see #setLongMinValue(long)
+	 */
+	public long getLongMinValue() {
+		return this.mMinValue;
+	}
+
+	/**
+	 * Returns the value of the picker.
+	 * 
+	 * @return The value.
+	 * @see #setLongValue(long)
+	 */
+	public long getLongValue() {
+		return this.mValue;
+	}
+
+	/**
+	 * Returns the max value of the picker, clamped to the int range.
+	 * 
+	 * @return The max value.
+	 * @see #getLongMaxValue()
+	 */
+	public int getMaxValue() {
+		return WheelMath.toInt( this.mMaxValue );
+	}
+
+	/**
+	 * Returns the min value of the picker, clamped to the int range.
+	 * 
+	 * @return The min value
+	 * @see #getLongMinValue()
+	 */
+	public int getMinValue() {
+		return WheelMath.toInt( this.mMinValue );
+	}
+
+	/**
+	 * Gets the source of the pages of values to be displayed instead of
+	 * string values.
+	 * 
+	 * @return The paged label source.
+	 */
+	public PagedLabelSource getPagedLabelSource() {
+		return this.mPagedLabelSource;
+	}
+
+	/**
+	 * @return The selected index given its displayed <code>value</code>.
+	 */
+	private long getSelectedPos( String value ) {
+		long bestMatchPosition = this.mMinValue;
+
+		if ( !this.hasDisplayedValues() ) {
+			try {
+				bestMatchPosition = this.parseTypedNumber( value );
+			} catch ( final NumberFormatException numberFormatException ) {
+				// Ignore as if it's not a number we don't care
+			}
+		} else if ( this.mDisplayedValues == null ) {
+			final int index = this.indexOfLabel( value, false );
+			if ( index >= 0 ) {
+				bestMatchPosition = this.toValue( index );
+			}
+
+			if ( bestMatchPosition == this.mMinValue ) {
+				// Support numbers typed in instead of a displayed value.
+				try {
+					bestMatchPosition = Long.parseLong( value );
+				} catch ( final NumberFormatException numberFormatException ) {
+					// Ignore as if it's not a number we don't care
+				}
+			}
+		} else {
+			value = value.toLowerCase();
+
+			for ( int i = 0; i < this.mDisplayedValues.length; ++i ) {
+				// Don't force the user to type in jan when ja will do
+				final String currentDisplayedValue =
+						this.mDisplayedValues[ i ].toLowerCase();
+
+				if ( value.equals( currentDisplayedValue ) ) {
+					bestMatchPosition = this.toValue( i );
 
 					break;
 				} else {
 					if ( ( bestMatchPosition != this.mMinValue )
 							&& currentDisplayedValue.startsWith( value ) ) {
-						bestMatchPosition = this.mMinValue + i;
+						bestMatchPosition = this.toValue( i );
 					}
 				}
 			}
@@ -2032,7 +3315,7 @@ public class NumberPicker extends LinearLayout {
 				 * i.e. 10 instead of OCT so support that too.
 				 */
 				try {
-					bestMatchPosition = Integer.parseInt( value );
+					bestMatchPosition = Long.parseLong( value );
 				} catch ( final NumberFormatException numberFormatException ) {
 					// Ignore as if it's not a number we don't care
 				}
@@ -2047,6 +3330,16 @@ public class NumberPicker extends LinearLayout {
 		return this.mSolidColor;
 	}
 
+	/**
+	 * Returns the distance between two consecutive selectable values.
+	 * 
+	 * @return The step.
+	 * @see #setStep(int)
+	 */
+	public int getStep() {
+		return this.mStep;
+	}
+
 	private SupportAccessibilityNodeProvider getSupportAccessibilityNodeProvider() {
 		return new SupportAccessibilityNodeProvider();
 	}
@@ -2057,24 +3350,23 @@ public class NumberPicker extends LinearLayout {
 	}
 
 	/**
-	 * Returns the value of the picker.
+	 * Returns the value of the picker, clamped to the int range.
 	 * 
 	 * @return The value.
+	 * @see #getLongValue()
 	 */
 	public int getValue() {
-		return this.mValue;
+		return WheelMath.toInt( this.mValue );
 	}
 
 	/**
-	 * @return The wrapped index <code>selectorIndex</code> value.
+	 * Gets the provider of the values to be displayed instead of string
+	 * values.
+	 * 
+	 * @return The value label provider.
 	 */
-	private int getWrappedSelectorIndex( final int selectorIndex ) {
-		if ( selectorIndex > this.mMaxValue ) {
-			return ( this.mMinValue + ( ( selectorIndex - this.mMaxValue ) % ( this.mMaxValue - this.mMinValue ) ) ) - 1;
-		} else if ( selectorIndex < this.mMinValue ) {
-			return ( this.mMaxValue - ( ( this.mMinValue - selectorIndex ) % ( this.mMaxValue - this.mMinValue ) ) ) + 1;
-		}
-		return selectorIndex;
+	public ValueLabelProvider getValueLabelProvider() {
+		return this.mValueLabelProvider;
 	}
 
 	/**
@@ -2089,6 +3381,29 @@ public class NumberPicker extends LinearLayout {
 		return this.mWrapSelectorWheel;
 	}
 
+	/**
+	 * @return Whether displayed values are provided as an array, a table, by
+	 *         a provider or by a paged source.
+	 */
+	private boolean hasDisplayedValues() {
+		return ( this.mDisplayedValues != null )
+				|| ( this.mDisplayedValueTable != null )
+				|| ( this.mValueLabelProvider != null )
+				|| ( this.mPagedLabelSource != null );
+	}
+
+	/**
+	 * Returns whether there is a selectable value at <code>position</code>,
+	 * counted in steps from the min value.
+	 */
+	private boolean hasPosition( final long position ) {
+		if ( this.usesAllowedValues() ) {
+			return position <= this.getLastPosition();
+		}
+		return ( this.mMaxValue >= this.mMinValue )
+				&& !WheelMath.lessUnsigned( this.getLastPosition(), position );
+	}
+
 	/**
 	 * Hides the soft input if it is active for the input text.
 	 */
@@ -2110,18 +3425,35 @@ public class NumberPicker extends LinearLayout {
 	 * Increments the <code>selectorIndices</code> whose string representations
 	 * will be displayed in the selector.
 	 */
-	private void incrementSelectorIndices( final int[] selectorIndices ) {
+	private void incrementSelectorIndices( final long[] selectorIndices ) {
+		final char[][] selectorLabels = this.mSelectorLabels;
+		final int[] selectorLabelLengths = this.mSelectorLabelLengths;
+		final boolean[] selectorIndexInRange = this.mSelectorIndexInRange;
+		final char[] recycledLabel = selectorLabels[ 0 ];
 		for ( int i = 0; i < ( selectorIndices.length - 1 ); i++ ) {
 			selectorIndices[ i ] = selectorIndices[ i + 1 ];
+			selectorLabels[ i ] = selectorLabels[ i + 1 ];
+			selectorLabelLengths[ i ] = selectorLabelLengths[ i + 1 ];
+			selectorIndexInRange[ i ] = selectorIndexInRange[ i + 1 ];
+		}
+		selectorLabels[ selectorIndices.length - 1 ] = recycledLabel;
+		this.fillSelectorIndex( selectorIndices, selectorIndices.length - 1 );
+	}
+
+	/**
+	 * Returns the index of the first displayed value of the table, provider
+	 * or paged source equal to, or starting with if <code>prefix</code> is
+	 * set, <code>text</code> ignoring case, or -1 if there is none.
+	 */
+	private int indexOfLabel( final String text, final boolean prefix ) {
+		if ( this.mPagedLabelSource != null ) {
+			return this.mPagedLabelSource.indexOfLabel( text, prefix );
 		}
-		int nextScrollSelectorIndex =
-				selectorIndices[ selectorIndices.length - 2 ] + 1;
-		if ( this.mWrapSelectorWheel
-				&& ( nextScrollSelectorIndex > this.mMaxValue ) ) {
-			nextScrollSelectorIndex = this.mMinValue;
+		if ( this.mValueLabelProvider != null ) {
+			return this.mValueLabelProvider.indexOfLabel( text, prefix );
 		}
-		selectorIndices[ selectorIndices.length - 1 ] = nextScrollSelectorIndex;
-		this.ensureCachedScrollSelectorValue( nextScrollSelectorIndex );
+		return prefix ? this.mDisplayedValueTable.indexOfPrefixIgnoreCase( text )
+				: this.mDisplayedValueTable.indexOfIgnoreCase( text );
 	}
 
 	private void initializeFadingEdges() {
@@ -2131,7 +3463,7 @@ public class NumberPicker extends LinearLayout {
 
 	private void initializeSelectorWheel() {
 		this.initializeSelectorWheelIndices();
-		final int[] selectorIndices = this.mSelectorIndices;
+		final long[] selectorIndices = this.mSelectorIndices;
 		final int totalTextHeight = selectorIndices.length * this.mTextSize;
 		final float totalTextGapHeight =
 				( this.getBottom() - this.getTop() ) - totalTextHeight;
@@ -2152,22 +3484,75 @@ public class NumberPicker extends LinearLayout {
 	}
 
 	/**
-	 * Resets the selector indices and clear the cached string representation of
-	 * these indices.
+	 * Resets the selector indices and the labels drawn for them.
 	 */
 	private void initializeSelectorWheelIndices() {
-		this.mSelectorIndexToStringCache.clear();
-		final int[] selectorIndices = this.mSelectorIndices;
-		final int current = this.getValue();
-		for ( int i = 0; i < this.mSelectorIndices.length; i++ ) {
-			int selectorIndex =
-					current + ( i - NumberPicker.SELECTOR_MIDDLE_ITEM_INDEX );
-			if ( this.mWrapSelectorWheel ) {
-				selectorIndex = this.getWrappedSelectorIndex( selectorIndex );
+		final long[] selectorIndices = this.mSelectorIndices;
+		selectorIndices[ NumberPicker.SELECTOR_MIDDLE_ITEM_INDEX ] = this.mValue;
+		for ( int i = 0; i < selectorIndices.length; i++ ) {
+			this.fillSelectorIndex( selectorIndices, i );
+		}
+	}
+
+	/**
+	 * Drops all labels formatted ahead of time and discards the results of
+	 * background formatting still in progress. When the shared label pool is
+	 * used the cache for the current formatter and locale is looked up
+	 * instead, the labels in the pool are still valid for other pickers.
+	 */
+	private void invalidateFormattedLabels() {
+		if ( this.mUseSharedLabelPool && ( this.mFormatter != null ) ) {
+			this.mLabelCache =
+					LabelPool.obtain( this.getContext(), this.mFormatter,
+							this.mLabelLocale );
+		} else {
+			this.mLabelCache = this.mPrivateLabelCache;
+			this.mLabelCache.clear();
+		}
+		this.mLabelGeneration++;
+		this.mFormatLabelsCommands.clear();
+		this.releaseLandingLabels();
+	}
+
+	/**
+	 * Returns whether the label of <code>value</code> is being formatted by
+	 * a pending command of the label executor.
+	 */
+	private boolean isFormattingLabel( final long value ) {
+		final List<FormatLabelsCommand> commands = this.mFormatLabelsCommands;
+		for ( int i = 0; i < commands.size(); i++ ) {
+			final FormatLabelsCommand command = commands.get( i );
+			if ( ( value >= command.mFrom ) && ( value <= command.mTo ) ) {
+				return true;
 			}
-			selectorIndices[ i ] = selectorIndex;
-			this.ensureCachedScrollSelectorValue( selectorIndices[ i ] );
 		}
+		return false;
+	}
+
+	/**
+	 * Returns whether the selectable value <code>value</code> is enabled.
+	 * 
+	 * @param value
+	 *            The value.
+	 * @return Whether the value may be selected.
+	 * @see #setValueEnabled(long, boolean)
+	 */
+	public boolean isValueEnabled( final long value ) {
+		if ( ( this.mDisabledPositions == null ) || ( value < this.mMinValue )
+				|| ( value > this.mMaxValue ) ) {
+			return true;
+		}
+		return this.isPositionEnabled( this.toPosition( value ) );
+	}
+
+	/**
+	 * Returns whether the value at <code>position</code> is enabled.
+	 * Positions past {@link Integer#MAX_VALUE} cannot be disabled.
+	 */
+	private boolean isPositionEnabled( final long position ) {
+		return ( this.mDisabledPositions == null )
+				|| WheelMath.lessUnsigned( Integer.MAX_VALUE, position )
+				|| !this.mDisabledPositions.get( (int) position );
 	}
 
 	/**
@@ -2198,6 +3583,65 @@ public class NumberPicker extends LinearLayout {
 		}
 	}
 
+	/**
+	 * Moves the selector wheel by <code>count</code> elements at once, down
+	 * to previous values if positive, and takes their height off the scroll
+	 * offset. The wheel stops at the ends of the range unless it wraps, with
+	 * no offset left. Only the value the wheel stops on is set or, if that
+	 * one is disabled, the last enabled value passed on the way, so that a
+	 * fast fling over a large range sets the value and notifies the listener
+	 * once per frame rather than once per element. The selector indices are
+	 * shifted for short moves and filled anew for long ones.
+	 */
+	private void moveSelectorWheel( final long count ) {
+		final long[] selectorIndices = this.mSelectorIndices;
+		final long middle =
+				selectorIndices[ NumberPicker.SELECTOR_MIDDLE_ITEM_INDEX ];
+		long items = count;
+		if ( !this.mWrapSelectorWheel && !this.canStep( middle, -items ) ) {
+			final long position = this.toPosition( middle );
+			items = ( items > 0 ) ? position : position - this.getLastPosition();
+		}
+		this.mCurrentScrollOffset -= (int) ( items * this.mSelectorElementHeight );
+		final long target = this.stepValue( middle, -items );
+		if ( !this.mWrapSelectorWheel
+				&& !this.canStep( target, ( items > 0 ) ? -1 : 1 ) ) {
+			this.mCurrentScrollOffset = this.mInitialScrollOffset;
+		}
+		long value = target;
+		long remaining = 0;
+		if ( !this.isValueEnabled( target ) ) {
+			final int back = ( items > 0 ) ? 1 : -1;
+			final long steps =
+					this.stepsToEnabled( target, back, Math.abs( items ) - 1 );
+			if ( steps != 0 ) {
+				value = this.stepValue( target, back * steps );
+				remaining = back * steps;
+			} else {
+				value = this.mValue;
+			}
+		}
+		if ( value != this.mValue ) {
+			// The indices are filled anew around the value.
+			this.setValueInternal( value, true );
+		} else {
+			remaining = items;
+		}
+		if ( Math.abs( remaining ) >= selectorIndices.length ) {
+			selectorIndices[ NumberPicker.SELECTOR_MIDDLE_ITEM_INDEX ] = target;
+			for ( int i = 0; i < selectorIndices.length; i++ ) {
+				this.fillSelectorIndex( selectorIndices, i );
+			}
+			return;
+		}
+		for ( long i = remaining; i > 0; i-- ) {
+			this.decrementSelectorIndices( selectorIndices );
+		}
+		for ( long i = remaining; i < 0; i++ ) {
+			this.incrementSelectorIndices( selectorIndices );
+		}
+	}
+
 	/**
 	 * Move to the final position of a scroller. Ensures to force finish the
 	 * scroller and if it is not at its final position a scroll of the selector
@@ -2231,20 +3675,74 @@ public class NumberPicker extends LinearLayout {
 		return false;
 	}
 
+	/**
+	 * Returns the first position from <code>position</code> on whose value is
+	 * enabled, which may be past the last position.
+	 */
+	private long nextEnabledPosition( final long position ) {
+		if ( ( this.mDisabledPositions == null )
+				|| WheelMath.lessUnsigned( Integer.MAX_VALUE, position ) ) {
+			return position;
+		}
+		return this.mDisabledPositions.nextClearBit( (int) position );
+	}
+
 	/**
 	 * Notifies the listener, if registered, of a change of the value of this
-	 * NumberPicker.
+	 * NumberPicker. Values outside of the int range are clamped to it.
 	 */
-	private void notifyChange( final int previous, final int current ) {
+	private void notifyChange( final long previous, final long current ) {
 		if ( this.mOnValueChangeListener != null ) {
-			this.mOnValueChangeListener.onValueChange( this, previous,
-					this.mValue );
+			this.mOnValueChangeListener.onValueChange( this,
+					WheelMath.toInt( previous ), WheelMath.toInt( this.mValue ) );
+		}
+	}
+
+	/**
+	 * Returns the digit glyphs to draw the selector wheel from, rendered for
+	 * the current text size and locale, or <code>null</code> if the labels are
+	 * to be drawn as text.
+	 */
+	private DigitGlyphAtlas obtainDigitGlyphAtlas() {
+		if ( !this.mNumericGlyphRendering || ( this.mFormatter != null )
+				|| this.hasDisplayedValues() ) {
+			return null;
+		}
+		if ( this.mDigitGlyphAtlas == null ) {
+			this.mDigitGlyphAtlas = new DigitGlyphAtlas();
+		}
+		if ( !this.mDigitGlyphAtlas.isValidFor( this.mSelectorWheelPaint,
+				NumberPicker.sDigitFormatter ) ) {
+			this.mDigitGlyphAtlas.build( this.mSelectorWheelPaint,
+					NumberPicker.sDigitFormatter );
+		}
+		return this.mDigitGlyphAtlas;
+	}
+
+	@Override
+	protected void onAttachedToWindow() {
+		super.onAttachedToWindow();
+		// The default locale may have been changed while we were detached.
+		this.updateLocale( Locale.getDefault() );
+	}
+
+	@Override
+	protected void onConfigurationChanged( final Configuration newConfig ) {
+		super.onConfigurationChanged( newConfig );
+		if ( newConfig.locale != null ) {
+			this.updateLocale( newConfig.locale );
 		}
 	}
 
 	@Override
 	protected void onDetachedFromWindow() {
 		this.removeAllCallbacks();
+		if ( this.mVsyncClock != null ) {
+			this.mVsyncClock.cancel();
+		}
+		if ( this.mDigitGlyphAtlas != null ) {
+			this.mDigitGlyphAtlas.recycle();
+		}
 	}
 
 	@Override
@@ -2277,11 +3775,9 @@ public class NumberPicker extends LinearLayout {
 		}
 
 		// draw the selector wheel
-		final int[] selectorIndices = this.mSelectorIndices;
+		final DigitGlyphAtlas atlas = this.obtainDigitGlyphAtlas();
+		final long[] selectorIndices = this.mSelectorIndices;
 		for ( int i = 0; i < selectorIndices.length; i++ ) {
-			final int selectorIndex = selectorIndices[ i ];
-			final String scrollSelectorValue =
-					this.mSelectorIndexToStringCache.get( selectorIndex );
 			// Do not draw the middle item if input is visible since the input
 			// is shown only if the wheel is static and it covers the middle
 			// item. Otherwise, if the user starts editing the text via the
@@ -2289,8 +3785,15 @@ public class NumberPicker extends LinearLayout {
 			// with the new one.
 			if ( ( i != NumberPicker.SELECTOR_MIDDLE_ITEM_INDEX )
 					|| ( this.mInputText.getVisibility() != View.VISIBLE ) ) {
-				canvas.drawText( scrollSelectorValue, x, y,
-						this.mSelectorWheelPaint );
+				final Paint paint =
+						( this.mSelectorIndexInRange[ i ] && !this.isValueEnabled( selectorIndices[ i ] ) ) ? this.mDisabledSelectorWheelPaint
+								: this.mSelectorWheelPaint;
+				if ( ( atlas == null )
+						|| !this.drawSelectorLabelGlyphs( canvas, atlas, i, x,
+								y, paint ) ) {
+					canvas.drawText( this.mSelectorLabels[ i ], 0,
+							this.mSelectorLabelLengths[ i ], x, y, paint );
+				}
 			}
 			y += this.mSelectorElementHeight;
 		}
@@ -2322,10 +3825,10 @@ public class NumberPicker extends LinearLayout {
 		super.onInitializeAccessibilityEvent( event );
 		event.setClassName( NumberPicker.class.getName() );
 		event.setScrollable( true );
-		event.setScrollY( ( this.mMinValue + this.mValue )
-				* this.mSelectorElementHeight );
-		event.setMaxScrollY( ( this.mMaxValue - this.mMinValue )
-				* this.mSelectorElementHeight );
+		event.setScrollY( WheelMath.scrollOffset( this.toPosition( this.mValue ),
+				0, this.mSelectorElementHeight ) );
+		event.setMaxScrollY( WheelMath.scrollOffset( this.getLastPosition(), 0,
+				this.mSelectorElementHeight ) );
 	}
 
 	@Override
@@ -2379,6 +3882,44 @@ public class NumberPicker extends LinearLayout {
 		return false;
 	}
 
+	/**
+	 * Publishes the <code>labels</code> loaded by <code>command</code>
+	 * unless they became invalid while it was running.
+	 */
+	private void onLabelPageLoaded( final LoadLabelPageCommand command,
+			final String[] labels ) {
+		if ( ( command.mSource != this.mPagedLabelSource )
+				|| !this.storeLabelPage( command, labels ) ) {
+			return;
+		}
+		this.initializeSelectorWheelIndices();
+		this.updateInputTextView();
+		this.invalidate();
+	}
+
+	/**
+	 * Publishes the <code>labels</code> formatted by <code>command</code>
+	 * unless they became invalid while it was running.
+	 */
+	private void onLabelsFormatted( final FormatLabelsCommand command,
+			final String[] labels ) {
+		if ( command.mGeneration != this.mLabelGeneration ) {
+			return;
+		}
+		this.mFormatLabelsCommands.remove( command );
+		for ( int i = 0; i < labels.length; i++ ) {
+			final int value = command.getValue( i );
+			if ( ( labels[ i ] != null ) && ( value >= this.mMinValue )
+					&& ( value <= this.mMaxValue ) ) {
+				this.mLabelCache.put( value, labels[ i ] );
+				this.pinLandingLabel( value, labels[ i ] );
+			}
+		}
+		this.initializeSelectorWheelIndices();
+		this.updateInputTextView();
+		this.invalidate();
+	}
+
 	@Override
 	protected void onLayout( final boolean changed, final int left,
 			final int top, final int right, final int bottom ) {
@@ -2437,6 +3978,39 @@ public class NumberPicker extends LinearLayout {
 		this.setMeasuredDimension( widthSize, heightSize );
 	}
 
+	/**
+	 * Drops the state kept by position after the positions of the selectable
+	 * values changed, and disables again the <code>disabledValues</code>
+	 * taken before the change which are still selectable.
+	 */
+	private void onPositionsChanged( final long[] disabledValues ) {
+		if ( this.mValueLabelProvider != null ) {
+			// Provided labels are looked up by index.
+			this.mPrivateLabelCache.clear();
+			this.releaseLandingLabels();
+		}
+		if ( this.mLabelPager != null ) {
+			this.mLabelPager.clear();
+		}
+		if ( this.mDisabledPositions == null ) {
+			return;
+		}
+		this.mDisabledPositions.clear();
+		if ( disabledValues == null ) {
+			return;
+		}
+		for ( final long value : disabledValues ) {
+			if ( ( value < this.mMinValue ) || ( value > this.mMaxValue )
+					|| ( this.alignToStep( value ) != value ) ) {
+				continue;
+			}
+			final long position = this.toPosition( value );
+			if ( !WheelMath.lessUnsigned( Integer.MAX_VALUE, position ) ) {
+				this.mDisabledPositions.set( (int) position );
+			}
+		}
+	}
+
 	/**
 	 * Callback invoked upon completion of a given <code>scroller</code>.
 	 */
@@ -2460,6 +4034,9 @@ public class NumberPicker extends LinearLayout {
 		if ( this.mScrollState == scrollState ) {
 			return;
 		}
+		if ( this.mScrollState == OnScrollListener.SCROLL_STATE_FLING ) {
+			this.releaseLandingLabels();
+		}
 		this.mScrollState = scrollState;
 		if ( this.mOnScrollListener != null ) {
 			this.mOnScrollListener.onScrollStateChange( this, scrollState );
@@ -2548,44 +4125,205 @@ public class NumberPicker extends LinearLayout {
 	}
 
 	/**
-	 * Posts a command for beginning an edit of the current value via IME on
-	 * long press.
+	 * Parses the number typed in <code>value</code>, with the affixes of the
+	 * label template whole or partially deleted, as a fixed-point decimal
+	 * with the decimal scale.
+	 * 
+	 * @throws NumberFormatException
+	 *             If no number was typed.
 	 */
-	private void postBeginSoftInputOnLongPressCommand() {
-		if ( this.mBeginSoftInputOnLongPressCommand == null ) {
-			this.mBeginSoftInputOnLongPressCommand =
-					new BeginSoftInputOnLongPressCommand();
+	private long parseTypedNumber( final String value ) {
+		final DigitFormatter digits = NumberPicker.sDigitFormatter;
+		if ( !this.usesLabelTemplate() ) {
+			return digits.parse( value, 0, value.length(), this.mDecimalScale );
+		}
+		final String prefix = this.mLabelPrefix;
+		int start = 0;
+		if ( value.regionMatches( true, 0, prefix, 0, prefix.length() ) ) {
+			start = prefix.length();
 		} else {
-			this.removeCallbacks( this.mBeginSoftInputOnLongPressCommand );
+			while ( ( start < value.length() )
+					&& !Character.isDigit( value.charAt( start ) )
+					&& !NumberPicker.isMinusSign( value.charAt( start ) ) ) {
+				start++;
+			}
 		}
-		this.postDelayed( this.mBeginSoftInputOnLongPressCommand,
-				ViewConfiguration.getLongPressTimeout() );
+		int end = start;
+		if ( ( end < value.length() )
+				&& NumberPicker.isMinusSign( value.charAt( end ) ) ) {
+			end++;
+		}
+		for ( ; end < value.length(); end++ ) {
+			final char c = value.charAt( end );
+			final boolean separator =
+					( this.mDecimalScale > 0 )
+							&& ( ( c == '.' ) || ( c == digits.getDecimalSeparator() ) );
+			if ( !Character.isDigit( c ) && !separator ) {
+				break;
+			}
+		}
+		return digits.parse( value, start, end, this.mDecimalScale );
 	}
 
 	/**
-	 * Posts a command for changing the current value by one.
-	 * 
-	 * @param increment
-	 *            Whether to increment or decrement the value.
+	 * Pins <code>label</code>, formatted in the background, if
+	 * <code>value</code> is one of the values around where the current
+	 * fling lands.
 	 */
-	private void postChangeCurrentByOneFromLongPress( final boolean increment,
-			final long delayMillis ) {
-		if ( this.mChangeCurrentByOneFromLongPressCommand == null ) {
-			this.mChangeCurrentByOneFromLongPressCommand =
-					new ChangeCurrentByOneFromLongPressCommand();
-		} else {
-			this.removeCallbacks( this.mChangeCurrentByOneFromLongPressCommand );
+	private void pinLandingLabel( final long value, final String label ) {
+		for ( int i = 0; i < this.mLandingCount; i++ ) {
+			if ( this.mLandingValues[ i ] == value ) {
+				this.mLandingLabels[ i ] = label;
+			}
 		}
-		this.mChangeCurrentByOneFromLongPressCommand.setStep( increment );
-		this.postDelayed( this.mChangeCurrentByOneFromLongPressCommand,
-				delayMillis );
 	}
 
 	/**
-	 * Posts an {@link SetSelectionCommand} from the given <code>selectionStart
-	 * </code> to <code>selectionEnd</code>.
+	 * Formats the labels of the values from <code>from</code> to
+	 * <code>to</code> in one pass so that scrolling through them later does
+	 * not have to call the {@link Formatter}. Only the selectable values are
+	 * formatted, see {@link #setStep(int)}. If the step is 1 and the formatter
+	 * is a {@link RangeFormatter} the whole range is handed to it at once. The
+	 * labels are kept in the label cache until the formatter, the displayed
+	 * values, the range or the locale change, or until they are evicted by
+	 * more recently used labels.
+	 * <p>
+	 * Note: At most as many labels as the label cache holds are formatted,
+	 * those of the first selectable values from <code>from</code>. Raise the
+	 * capacity via {@link #setLabelCacheCapacity(int)} to prefetch wider
+	 * windows.
+	 * </p>
+	 * <p>
+	 * Note: This is a NOP if no {@link Formatter} is set or displayed values
+	 * are provided since these labels are not formatted.
+	 * </p>
+	 * 
+	 * @param from
+	 *            The first value to prefetch, inclusive.
+	 * @param to
+	 *            The last value to prefetch, inclusive.
+	 * @see #setFormatter(Formatter)
+	 * @see #setLabelCacheCapacity(int)
 	 */
-	private void postSetSelectionCommand( final int selectionStart,
+	public void prefetchLabels( final int from, final int to ) {
+		if ( ( this.mFormatter == null ) || this.hasDisplayedValues() ) {
+			return;
+		}
+		if ( ( from > this.mMaxValue ) || ( to < this.mMinValue ) ) {
+			return;
+		}
+		// Only the selectable values between from and to are formatted.
+		final long first = this.alignToStep( Math.max( from, this.mMinValue ) );
+		final long last = this.alignToStep( Math.min( to, this.mMaxValue ) );
+		if ( ( first > last ) || ( last < from ) || ( first > to ) ) {
+			return;
+		}
+		final long firstPosition =
+				this.toPosition( first ) + ( ( first < from ) ? 1 : 0 );
+		final LabelCache labelCache = this.mLabelCache;
+		// Labels past the capacity would only evict the first ones.
+		final long count =
+				Math.min( this.toPosition( last ) - firstPosition,
+						labelCache.getCapacity() - 1 );
+		if ( count < 0 ) {
+			return;
+		}
+		if ( ( this.mStep == 1 ) && !this.usesAllowedValues()
+				&& ( this.mFormatter instanceof RangeFormatter )
+				&& ( count < Integer.MAX_VALUE ) ) {
+			final int firstValue = (int) this.toValue( firstPosition );
+			final int lastValue = (int) this.toValue( firstPosition + count );
+			final String[] labels = new String[ (int) count + 1 ];
+			( (RangeFormatter) this.mFormatter ).formatRange( firstValue,
+					lastValue, labels );
+			for ( int i = 0; i < labels.length; i++ ) {
+				if ( labels[ i ] != null ) {
+					labelCache.put( firstValue + i, labels[ i ] );
+				}
+			}
+			return;
+		}
+		// Counting the values keeps the loop from overflowing at the end of
+		// the int range.
+		for ( long i = 0; i <= count; i++ ) {
+			final long value = this.toValue( firstPosition + i );
+			labelCache.put( value, this.mFormatter.format( (int) value ) );
+		}
+	}
+
+	/**
+	 * Prepares the labels of the selector wheel items around
+	 * <code>value</code>, where a fling will land, so that they are at hand
+	 * by the time it settles. Formatted and provided labels are pinned until
+	 * the fling ends, with a label executor those around them are formatted
+	 * in the background, and the page of a paged label source holding
+	 * <code>value</code> starts loading and is pinned.
+	 */
+	private void prefetchLandingLabels( final long value ) {
+		this.releaseLandingLabels();
+		if ( ( this.mFormatter == null ) && ( this.mValueLabelProvider == null )
+				&& ( this.mPagedLabelSource == null ) ) {
+			return;
+		}
+		final long position = this.toPosition( value );
+		if ( ( this.mLabelPager != null )
+				&& !WheelMath.lessUnsigned( Integer.MAX_VALUE, position ) ) {
+			this.mLabelPager.pin( this.mLabelPager.getPage( position ) );
+		}
+		final int radius = NumberPicker.SELECTOR_MIDDLE_ITEM_INDEX;
+		for ( int delta = -radius; delta <= radius; delta++ ) {
+			if ( this.mWrapSelectorWheel || this.canStep( value, delta ) ) {
+				final long landing = this.stepValue( value, delta );
+				final String label = this.getLabel( landing );
+				if ( this.mPagedLabelSource == null ) {
+					this.mLandingValues[ this.mLandingCount ] = landing;
+					this.mLandingLabels[ this.mLandingCount ] =
+							this.isFormattingLabel( landing ) ? null : label;
+					this.mLandingCount++;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Posts a command for beginning an edit of the current value via IME on
+	 * long press.
+	 */
+	private void postBeginSoftInputOnLongPressCommand() {
+		if ( this.mBeginSoftInputOnLongPressCommand == null ) {
+			this.mBeginSoftInputOnLongPressCommand =
+					new BeginSoftInputOnLongPressCommand();
+		} else {
+			this.removeCallbacks( this.mBeginSoftInputOnLongPressCommand );
+		}
+		this.postDelayed( this.mBeginSoftInputOnLongPressCommand,
+				ViewConfiguration.getLongPressTimeout() );
+	}
+
+	/**
+	 * Posts a command for changing the current value by one.
+	 * 
+	 * @param increment
+	 *            Whether to increment or decrement the value.
+	 */
+	private void postChangeCurrentByOneFromLongPress( final boolean increment,
+			final long delayMillis ) {
+		if ( this.mChangeCurrentByOneFromLongPressCommand == null ) {
+			this.mChangeCurrentByOneFromLongPressCommand =
+					new ChangeCurrentByOneFromLongPressCommand();
+		} else {
+			this.removeCallbacks( this.mChangeCurrentByOneFromLongPressCommand );
+		}
+		this.mChangeCurrentByOneFromLongPressCommand.setStep( increment );
+		this.postDelayed( this.mChangeCurrentByOneFromLongPressCommand,
+				delayMillis );
+	}
+
+	/**
+	 * Posts an {@link SetSelectionCommand} from the given <code>selectionStart
+	 * </code> to <code>selectionEnd</code>.
+	 */
+	private void postSetSelectionCommand( final int selectionStart,
 			final int selectionEnd ) {
 		if ( this.mSetSelectionCommand == null ) {
 			this.mSetSelectionCommand = new SetSelectionCommand();
@@ -2597,6 +4335,17 @@ public class NumberPicker extends LinearLayout {
 		this.post( this.mSetSelectionCommand );
 	}
 
+	/**
+	 * Unpins the labels pinned for the current fling.
+	 */
+	private void releaseLandingLabels() {
+		Arrays.fill( this.mLandingLabels, null );
+		this.mLandingCount = 0;
+		if ( this.mLabelPager != null ) {
+			this.mLabelPager.unpin();
+		}
+	}
+
 	/**
 	 * Removes all pending callback from the message queue.
 	 */
@@ -2631,6 +4380,100 @@ public class NumberPicker extends LinearLayout {
 		}
 	}
 
+	/**
+	 * Submits the formatting of the labels around <code>value</code> to the
+	 * label executor unless a pending command covers it already. The labels
+	 * covered by pending commands are left out of the new one.
+	 * 
+	 * @return Whether the label of <code>value</code> is being formatted in
+	 *         the background.
+	 */
+	private boolean requestBackgroundLabels( final int value ) {
+		if ( this.isFormattingLabel( value ) ) {
+			return true;
+		}
+		// Format the selectable values around value which fit in an int.
+		final int radius = NumberPicker.BACKGROUND_FORMAT_RADIUS;
+		final long position = this.toPosition( value );
+		final long remaining = this.getLastPosition() - position;
+		int back = WheelMath.lessUnsigned( position, radius ) ? (int) position
+				: radius;
+		int ahead = WheelMath.lessUnsigned( remaining, radius ) ? (int) remaining
+				: radius;
+		while ( !NumberPicker.isIntValue( this.toValue( position - back ) )
+				|| this.isFormattingLabel( this.toValue( position - back ) ) ) {
+			back--;
+		}
+		while ( !NumberPicker.isIntValue( this.toValue( position + ahead ) )
+				|| this.isFormattingLabel( this.toValue( position + ahead ) ) ) {
+			ahead--;
+		}
+		int[] values = null;
+		if ( ( this.mStep > 1 ) || this.usesAllowedValues() ) {
+			values = new int[ back + ahead + 1 ];
+			for ( int i = 0; i < values.length; i++ ) {
+				values[ i ] = (int) this.toValue( ( position - back ) + i );
+			}
+		}
+		final FormatLabelsCommand command =
+				new FormatLabelsCommand( this.mFormatter,
+						(int) this.toValue( position - back ),
+						(int) this.toValue( position + ahead ), values,
+						this.mLabelGeneration );
+		try {
+			this.mLabelExecutor.execute( command );
+		} catch ( final RejectedExecutionException rejectedExecutionException ) {
+			return false;
+		}
+		this.mFormatLabelsCommands.add( command );
+		return true;
+	}
+
+	/**
+	 * Loads <code>page</code> of the paged label source, on the label
+	 * executor if one is set, unless it is loaded or requested already.
+	 */
+	private void requestLabelPage( final int page ) {
+		final LabelPager pager = this.mLabelPager;
+		if ( !pager.request( page ) ) {
+			return;
+		}
+		final long first = (long) page * pager.getPageSize();
+		final int count = this.getLabelPageLength( first );
+		final LoadLabelPageCommand command =
+				new LoadLabelPageCommand( this.mPagedLabelSource, page,
+						(int) first, count, pager.getGeneration() );
+		if ( this.mLabelExecutor != null ) {
+			try {
+				this.mLabelExecutor.execute( command );
+				return;
+			} catch ( final RejectedExecutionException rejectedExecutionException ) {
+				// Load the page on the UI thread instead.
+			}
+		}
+		this.storeLabelPage( command,
+				this.mPagedLabelSource.loadLabels( (int) first, count ) );
+	}
+
+	/**
+	 * Requests the page of the paged label source holding the label at
+	 * <code>position</code>. With a label executor the neighbouring page
+	 * closest to <code>position</code> is requested as well, so that it is
+	 * loaded before it is scrolled into view. The position must not be past
+	 * {@link #getLastLabelPageIndex()}.
+	 */
+	private void requestLabelPages( final long position ) {
+		final LabelPager pager = this.mLabelPager;
+		this.requestLabelPage( pager.getPage( position ) );
+		if ( this.mLabelExecutor == null ) {
+			return;
+		}
+		final long half = pager.getPageSize() / 2;
+		this.requestLabelPage( pager.getPage( Math.min( position + half,
+				this.getLastLabelPageIndex() ) ) );
+		this.requestLabelPage( pager.getPage( Math.max( position - half, 0 ) ) );
+	}
+
 	/**
 	 * Utility to reconcile a desired size and state, with constraints imposed
 	 * by a MeasureSpec. Tries to respect the min size, unless a different size
@@ -2658,42 +4501,183 @@ public class NumberPicker extends LinearLayout {
 
 	@Override
 	public void scrollBy( final int x, final int y ) {
-		final int[] selectorIndices = this.mSelectorIndices;
+		final long[] selectorIndices = this.mSelectorIndices;
 		if ( !this.mWrapSelectorWheel
 				&& ( y > 0 )
-				&& ( selectorIndices[ NumberPicker.SELECTOR_MIDDLE_ITEM_INDEX ] <= this.mMinValue ) ) {
+				&& !this.canStep( selectorIndices[ NumberPicker.SELECTOR_MIDDLE_ITEM_INDEX ], -1 ) ) {
 			this.mCurrentScrollOffset = this.mInitialScrollOffset;
 			return;
 		}
 		if ( !this.mWrapSelectorWheel
 				&& ( y < 0 )
-				&& ( selectorIndices[ NumberPicker.SELECTOR_MIDDLE_ITEM_INDEX ] >= this.mMaxValue ) ) {
+				&& !this.canStep( selectorIndices[ NumberPicker.SELECTOR_MIDDLE_ITEM_INDEX ], 1 ) ) {
 			this.mCurrentScrollOffset = this.mInitialScrollOffset;
 			return;
 		}
 		this.mCurrentScrollOffset += y;
-		while ( ( this.mCurrentScrollOffset - this.mInitialScrollOffset ) > this.mSelectorTextGapHeight ) {
-			this.mCurrentScrollOffset -= this.mSelectorElementHeight;
-			this.decrementSelectorIndices( selectorIndices );
-			this.setValueInternal(
-					selectorIndices[ NumberPicker.SELECTOR_MIDDLE_ITEM_INDEX ],
-					true );
-			if ( !this.mWrapSelectorWheel
-					&& ( selectorIndices[ NumberPicker.SELECTOR_MIDDLE_ITEM_INDEX ] <= this.mMinValue ) ) {
-				this.mCurrentScrollOffset = this.mInitialScrollOffset;
-			}
+		final int elementHeight = this.mSelectorElementHeight;
+		if ( elementHeight <= 0 ) {
+			return;
 		}
-		while ( ( this.mCurrentScrollOffset - this.mInitialScrollOffset ) < -this.mSelectorTextGapHeight ) {
-			this.mCurrentScrollOffset += this.mSelectorElementHeight;
-			this.incrementSelectorIndices( selectorIndices );
-			this.setValueInternal(
-					selectorIndices[ NumberPicker.SELECTOR_MIDDLE_ITEM_INDEX ],
-					true );
-			if ( !this.mWrapSelectorWheel
-					&& ( selectorIndices[ NumberPicker.SELECTOR_MIDDLE_ITEM_INDEX ] >= this.mMaxValue ) ) {
-				this.mCurrentScrollOffset = this.mInitialScrollOffset;
+		// Move by all the elements scrolled past the text gap at once, down to
+		// previous values and back up if an element taller than the gaps
+		// around it went too far.
+		final int gapHeight = this.mSelectorTextGapHeight;
+		int offset = this.mCurrentScrollOffset - this.mInitialScrollOffset;
+		if ( offset > gapHeight ) {
+			this.moveSelectorWheel( ( ( offset - gapHeight - 1 ) / elementHeight ) + 1 );
+			offset = this.mCurrentScrollOffset - this.mInitialScrollOffset;
+		}
+		if ( offset < -gapHeight ) {
+			this.moveSelectorWheel( -( ( ( -gapHeight - offset - 1 ) / elementHeight ) + 1 ) );
+		}
+	}
+
+	/**
+	 * Sets the values which may be selected, such as denominations or port
+	 * numbers, and sets the min and max value to the first and last of them.
+	 * The selector wheel, the buttons and the keys move from one allowed
+	 * value to the next, and typed or set values which are not allowed are
+	 * moved down to the closest allowed value. Values are looked up in the
+	 * array by binary search, so the array is neither copied nor boxed and
+	 * must not be modified afterwards. The step set via
+	 * {@link #setStep(int)} is ignored while allowed values are set.
+	 * <p>
+	 * Note: Allowed values outside of a range set later via
+	 * {@link #setMinValue(int)} and {@link #setMaxValue(int)} may not be
+	 * selected, and if none is within the range all values of the range may.
+	 * Displayed values hold one label per allowed value within the range.
+	 * </p>
+	 * 
+	 * @param allowedValues
+	 *            The allowed values sorted in strictly ascending order, or
+	 *            <code>null</code> to allow all values of the range.
+	 */
+	public void setAllowedValues( final int[] allowedValues ) {
+		if ( allowedValues != null ) {
+			if ( allowedValues.length == 0 ) {
+				throw new IllegalArgumentException(
+						"allowedValues must not be empty" );
+			}
+			for ( int i = 1; i < allowedValues.length; i++ ) {
+				if ( allowedValues[ i ] <= allowedValues[ i - 1 ] ) {
+					throw new IllegalArgumentException(
+							"allowedValues must be sorted in ascending order" );
+				}
 			}
 		}
+		final long[] disabledValues = this.getDisabledValues();
+		this.mAllowedValues = allowedValues;
+		if ( allowedValues != null ) {
+			this.mMinValue = allowedValues[ 0 ];
+			this.mMaxValue = allowedValues[ allowedValues.length - 1 ];
+			this.mPrivateLabelCache.retainRange( this.mMinValue, this.mMaxValue );
+		}
+		this.updateAllowedRange();
+		this.onPositionsChanged( disabledValues );
+		this.mValue =
+				this.alignToStep( Math.max( this.mMinValue,
+						Math.min( this.mValue, this.mMaxValue ) ) );
+		this.setWrapSelectorWheel( this.hasPosition( this.mSelectorIndices.length + 1 ) );
+		this.initializeSelectorWheelIndices();
+		this.updateInputTextView();
+		this.tryComputeMaxWidth();
+		this.invalidate();
+	}
+
+	/**
+	 * Set the appending formatter to be used for formatting the current value.
+	 * The selector wheel formats into reused buffers and draws from them, so
+	 * no string is created per value while scrolling. Replaces any
+	 * {@link Formatter} set via {@link #setFormatter(Formatter)}.
+	 * <p>
+	 * Note: If you have provided alternative values for the values this
+	 * formatter is never invoked.
+	 * </p>
+	 * 
+	 * @param formatter
+	 *            The formatter object. If formatter is <code>null</code>,
+	 *            {@link String#valueOf(int)} will be used.
+	 * @see #setDisplayedValues(String[])
+	 */
+	public void setAppendingFormatter( final AppendingFormatter formatter ) {
+		if ( ( formatter == this.mAppendingFormatter )
+				&& ( this.mFormatter == null ) ) {
+			return;
+		}
+		this.mAppendingFormatter = formatter;
+		this.mFormatter = null;
+		this.invalidateFormattedLabels();
+		this.initializeSelectorWheelIndices();
+		this.updateInputTextView();
+	}
+
+	/**
+	 * Shows plain numbers as fixed-point decimals with <code>scale</code>
+	 * fraction digits. The values stay integers counting units of the last
+	 * fraction digit, so with a scale of 2 a range of 0 to 99999 shows 0.00
+	 * to 999.99 and a value of 150 shows 1.50. The labels are rendered with
+	 * the decimal separator of the locale without creating strings, and
+	 * typed input is parsed with either the separator of the locale or a
+	 * '.'.
+	 * <p>
+	 * Note: The scale is ignored for values formatted by a {@link Formatter}
+	 * or {@link AppendingFormatter} and for displayed values.
+	 * </p>
+	 * 
+	 * @param scale
+	 *            The number of fraction digits, 0 by default for integers.
+	 */
+	public void setDecimalScale( final int scale ) {
+		if ( ( scale < 0 ) || ( scale > DigitFormatter.MAX_SCALE ) ) {
+			throw new IllegalArgumentException( "scale must be >= 0 and <= "
+					+ DigitFormatter.MAX_SCALE );
+		}
+		if ( scale == this.mDecimalScale ) {
+			return;
+		}
+		this.mDecimalScale = scale;
+		this.mInputText.setRawInputType( ( scale > 0 ) ? InputType.TYPE_CLASS_NUMBER
+				| InputType.TYPE_NUMBER_FLAG_DECIMAL : InputType.TYPE_CLASS_NUMBER );
+		this.initializeSelectorWheelIndices();
+		this.updateInputTextView();
+		this.tryComputeMaxWidth();
+		this.invalidate();
+	}
+
+	/**
+	 * Sets the values to be displayed from a table such as a
+	 * {@link PackedLabelTable} or a {@link MappedLabelPack}. Compared to
+	 * {@link #setDisplayedValues(String[])} this keeps large sets of values in
+	 * a fraction of the memory and matches typed input without lower casing
+	 * every value. Replaces any displayed values set as an array, provider or
+	 * paged source.
+	 * 
+	 * @param displayedValueTable
+	 *            The displayed values.
+	 * 
+	 *            <strong>Note:</strong> The size of the table must be equal to
+	 *            the range of selectable numbers which is equal to
+	 *            {@link #getMaxValue()} - {@link #getMinValue()} + 1, or
+	 *            to the number of selectable values if a step is set via
+	 *            {@link #setStep(int)}.
+	 */
+	public void setDisplayedValueTable(
+			final LabelTable displayedValueTable ) {
+		if ( ( this.mDisplayedValueTable != displayedValueTable )
+				|| ( this.mDisplayedValues != null )
+				|| ( this.mValueLabelProvider != null )
+				|| ( this.mPagedLabelSource != null ) ) {
+			this.mDisplayedValueTable = displayedValueTable;
+			this.mDisplayedValues = null;
+			this.mValueLabelProvider = null;
+			this.mPagedLabelSource = null;
+			this.mLabelPager = null;
+			this.invalidateFormattedLabels();
+			this.updateInputTextView();
+			this.initializeSelectorWheelIndices();
+			this.tryComputeMaxWidth();
+		}
 	}
 
 	/**
@@ -2705,11 +4689,20 @@ public class NumberPicker extends LinearLayout {
 	 *            <strong>Note:</strong> The length of the displayed values
 	 *            array must be equal to the range of selectable numbers which
 	 *            is equal to {@link #getMaxValue()} - {@link #getMinValue()} +
-	 *            1.
+	 *            1, or to the number of selectable values if a step is set
+	 *            via {@link #setStep(int)}.
 	 */
 	public void setDisplayedValues( final String[] displayedValues ) {
-		if ( this.mDisplayedValues != displayedValues ) {
+		if ( ( this.mDisplayedValues != displayedValues )
+				|| ( this.mDisplayedValueTable != null )
+				|| ( this.mValueLabelProvider != null )
+				|| ( this.mPagedLabelSource != null ) ) {
 			this.mDisplayedValues = displayedValues;
+			this.mDisplayedValueTable = null;
+			this.mValueLabelProvider = null;
+			this.mPagedLabelSource = null;
+			this.mLabelPager = null;
+			this.invalidateFormattedLabels();
 			this.updateInputTextView();
 			this.initializeSelectorWheelIndices();
 			this.tryComputeMaxWidth();
@@ -2729,7 +4722,23 @@ public class NumberPicker extends LinearLayout {
 	}
 
 	/**
-	 * Set the formatter to be used for formatting the current value.
+	 * Sets the model of the motion of the selector wheel when flung, such as
+	 * {@link FlingPhysics#EXPONENTIAL} for the deceleration of iOS or
+	 * {@link FlingPhysics#SPRING} for a spring settling on the landing item.
+	 * The change applies from the next fling.
+	 * 
+	 * @param flingPhysics
+	 *            The fling physics, or <code>null</code> for the default
+	 *            {@link FlingPhysics#SPLINE} of the platform.
+	 */
+	public void setFlingPhysics( final FlingPhysics flingPhysics ) {
+		this.mFlingScroller.setFlingPhysics( flingPhysics );
+	}
+
+	/**
+	 * Set the formatter to be used for formatting the current value. The
+	 * strings it returns are cached and copied into the label buffers of the
+	 * selector wheel, so existing formatters keep working unchanged.
 	 * <p>
 	 * Note: If you have provided alternative values for the values this
 	 * formatter is never invoked.
@@ -2739,40 +4748,144 @@ public class NumberPicker extends LinearLayout {
 	 *            The formatter object. If formatter is <code>null</code>,
 	 *            {@link String#valueOf(int)} will be used.
 	 * @see #setDisplayedValues(String[])
+	 * @see #setAppendingFormatter(AppendingFormatter)
 	 */
 	public void setFormatter( final Formatter formatter ) {
-		if ( formatter == this.mFormatter ) {
+		if ( ( formatter == this.mFormatter )
+				&& ( this.mAppendingFormatter == null ) ) {
 			return;
 		}
 		this.mFormatter = formatter;
+		this.mAppendingFormatter = null;
+		this.invalidateFormattedLabels();
 		this.initializeSelectorWheelIndices();
 		this.updateInputTextView();
 	}
 
 	/**
-	 * Sets the max value of the picker.
+	 * Sets the max number of labels produced by the {@link Formatter} that are
+	 * cached. Once full, the least recently used label is evicted. The
+	 * default is 64. Changing the capacity clears the cache.
+	 * <p>
+	 * Note: This does not affect the shared label pool.
+	 * </p>
+	 * 
+	 * @param capacity
+	 *            The capacity, must be greater than 0.
+	 * @see #getLabelCacheHitCount()
+	 * @see #getLabelCacheMissCount()
+	 * @see #setUseSharedLabelPool(boolean)
+	 */
+	public void setLabelCacheCapacity( final int capacity ) {
+		if ( capacity == this.mPrivateLabelCache.getCapacity() ) {
+			return;
+		}
+		this.mPrivateLabelCache.setCapacity( capacity );
+	}
+
+	/**
+	 * Sets the executor on which the labels of the {@link Formatter} are
+	 * formatted. When set, a label that is not formatted yet is drawn as the
+	 * placeholder while the labels around it are formatted on the executor
+	 * and published to the picker once done. Use this for formatters too
+	 * expensive to run while scrolling. The pages of a
+	 * {@link PagedLabelSource} are loaded on the executor as well. The input
+	 * text and accessibility get the label of the current value formatted
+	 * on the UI thread rather than the placeholder.
+	 * <p>
+	 * Note: The formatter and the paged label source are invoked on the
+	 * threads of the executor and must be safe to use from them, as the
+	 * formatter of {@link #getTwoDigitFormatter()} is.
+	 * </p>
+	 * 
+	 * @param executor
+	 *            The executor, or <code>null</code> to format labels on the UI
+	 *            thread.
+	 * @see #setLabelPlaceholder(String)
+	 * @see #setPagedLabelSource(PagedLabelSource, int, int)
+	 */
+	public void setLabelExecutor( final Executor executor ) {
+		if ( executor == this.mLabelExecutor ) {
+			return;
+		}
+		this.mLabelExecutor = executor;
+		this.mFormatLabelsCommands.clear();
+		this.initializeSelectorWheelIndices();
+		this.updateInputTextView();
+		this.invalidate();
+	}
+
+	/**
+	 * Sets the label drawn while the actual label is formatted on the label
+	 * executor. The default is an ellipsis.
+	 * 
+	 * @param placeholder
+	 *            The placeholder.
+	 * @see #setLabelExecutor(Executor)
+	 */
+	public void setLabelPlaceholder( final String placeholder ) {
+		this.mLabelPlaceholder = ( placeholder != null ) ? placeholder : "";
+		this.initializeSelectorWheelIndices();
+		this.invalidate();
+	}
+
+	/**
+	 * Sets a fixed text shown before and after plain numbers, as in "$120"
+	 * or "15 min". Only the digits vary from one label to the next: the
+	 * affixes are measured once and the widest label is computed from them
+	 * and the widest digit instead of measuring every label. Typed input may
+	 * include or omit the affixes.
+	 * <p>
+	 * Note: The template is ignored while a {@link Formatter}, an
+	 * {@link AppendingFormatter} or displayed values are set.
+	 * </p>
+	 * 
+	 * @param prefix
+	 *            The text before the number, <code>null</code> for none.
+	 * @param suffix
+	 *            The text after the number, <code>null</code> for none.
+	 */
+	public void setLabelTemplate( final String prefix, final String suffix ) {
+		this.mLabelPrefix = ( prefix != null ) ? prefix : "";
+		this.mLabelSuffix = ( suffix != null ) ? suffix : "";
+		this.mLabelPrefixWidth =
+				this.mSelectorWheelPaint.measureText( this.mLabelPrefix );
+		this.mLabelSuffixWidth =
+				this.mSelectorWheelPaint.measureText( this.mLabelSuffix );
+		this.initializeSelectorWheelIndices();
+		this.updateInputTextView();
+		this.tryComputeMaxWidth();
+		this.invalidate();
+	}
+
+	/**
+	 * Sets the max value of the picker. Unlike {@link #setMaxValue(int)} this
+	 * accepts any long, including negative values, and the range may span
+	 * all longs.
+	 * <p>
+	 * Note: A {@link Formatter} or {@link AppendingFormatter} only formats
+	 * values within the int range, other values are shown as plain numbers.
+	 * </p>
 	 * 
 	 * @param maxValue
 	 *            The max value inclusive.
-	 * 
-	 *            <strong>Note:</strong> The length of the displayed values
-	 *            array set via {@link #setDisplayedValues(String[])} must be
-	 *            equal to the range of selectable numbers which is equal to
-	 *            {@link #getMaxValue()} - {@link #getMinValue()} + 1.
+	 * @see #setMaxValue(int)
 	 */
-	public void setMaxValue( final int maxValue ) {
+	public void setLongMaxValue( final long maxValue ) {
 		if ( this.mMaxValue == maxValue ) {
 			return;
 		}
-		if ( maxValue < 0 ) {
-			throw new IllegalArgumentException( "maxValue must be >= 0" );
-		}
 		this.mMaxValue = maxValue;
-		if ( this.mMaxValue < this.mValue ) {
-			this.mValue = this.mMaxValue;
+		this.mPrivateLabelCache.retainRange( this.mMinValue, this.mMaxValue );
+		if ( this.mLabelPager != null ) {
+			// The last page holds fewer labels than a page may now.
+			this.mLabelPager.clear();
 		}
+		this.updateAllowedRange();
+		this.mValue =
+				this.alignToStep( Math.min( this.mValue, this.mMaxValue ) );
 		final boolean wrapSelectorWheel =
-				( this.mMaxValue - this.mMinValue ) > this.mSelectorIndices.length;
+				this.hasPosition( this.mSelectorIndices.length + 1 );
 		this.setWrapSelectorWheel( wrapSelectorWheel );
 		this.initializeSelectorWheelIndices();
 		this.updateInputTextView();
@@ -2781,29 +4894,31 @@ public class NumberPicker extends LinearLayout {
 	}
 
 	/**
-	 * Sets the min value of the picker.
+	 * Sets the min value of the picker. Unlike {@link #setMinValue(int)} this
+	 * accepts any long, including negative values, and the range may span
+	 * all longs.
+	 * <p>
+	 * Note: A {@link Formatter} or {@link AppendingFormatter} only formats
+	 * values within the int range, other values are shown as plain numbers.
+	 * </p>
 	 * 
 	 * @param minValue
 	 *            The min value inclusive.
-	 * 
-	 *            <strong>Note:</strong> The length of the displayed values
-	 *            array set via {@link #setDisplayedValues(String[])} must be
-	 *            equal to the range of selectable numbers which is equal to
-	 *            {@link #getMaxValue()} - {@link #getMinValue()} + 1.
+	 * @see #setMinValue(int)
 	 */
-	public void setMinValue( final int minValue ) {
+	public void setLongMinValue( final long minValue ) {
 		if ( this.mMinValue == minValue ) {
 			return;
 		}
-		if ( minValue < 0 ) {
-			throw new IllegalArgumentException( "minValue must be >= 0" );
-		}
+		final long[] disabledValues = this.getDisabledValues();
 		this.mMinValue = minValue;
-		if ( this.mMinValue > this.mValue ) {
-			this.mValue = this.mMinValue;
-		}
+		this.mPrivateLabelCache.retainRange( this.mMinValue, this.mMaxValue );
+		this.updateAllowedRange();
+		this.onPositionsChanged( disabledValues );
+		this.mValue =
+				this.alignToStep( Math.max( this.mValue, this.mMinValue ) );
 		final boolean wrapSelectorWheel =
-				( this.mMaxValue - this.mMinValue ) > this.mSelectorIndices.length;
+				this.hasPosition( this.mSelectorIndices.length + 1 );
 		this.setWrapSelectorWheel( wrapSelectorWheel );
 		this.initializeSelectorWheelIndices();
 		this.updateInputTextView();
@@ -2811,6 +4926,87 @@ public class NumberPicker extends LinearLayout {
 		this.invalidate();
 	}
 
+	/**
+	 * Sets the current value of the picker, which may be any long within the
+	 * range set via {@link #setLongMinValue(long)} and
+	 * {@link #setLongMaxValue(long)}. Values outside of the range are wrapped
+	 * or clamped the same way as by {@link #setValue(int)}.
+	 * 
+	 * @param value
+	 *            The current value.
+	 * @see #setValue(int)
+	 */
+	public void setLongValue( final long value ) {
+		this.setValueInternal( value, false );
+	}
+
+	/**
+	 * Sets the max value of the picker.
+	 * 
+	 * @param maxValue
+	 *            The max value inclusive.
+	 * 
+	 *            <strong>Note:</strong> The length of the displayed values
+	 *            array set via {@link #setDisplayedValues(String[])}, or the
+	 *            size of the table set via
+	 *            {@link #setDisplayedValueTable(LabelTable)}, must be
+	 *            equal to the range of selectable numbers which is equal to
+	 *            {@link #getMaxValue()} - {@link #getMinValue()} + 1, or
+	 *            to the number of selectable values if a step is set via
+	 *            {@link #setStep(int)}.
+	 */
+	public void setMaxValue( final int maxValue ) {
+		if ( maxValue < 0 ) {
+			throw new IllegalArgumentException( "maxValue must be >= 0" );
+		}
+		this.setLongMaxValue( maxValue );
+	}
+
+	/**
+	 * Sets the min value of the picker.
+	 * 
+	 * @param minValue
+	 *            The min value inclusive.
+	 * 
+	 *            <strong>Note:</strong> The length of the displayed values
+	 *            array set via {@link #setDisplayedValues(String[])}, or the
+	 *            size of the table set via
+	 *            {@link #setDisplayedValueTable(LabelTable)}, must be
+	 *            equal to the range of selectable numbers which is equal to
+	 *            {@link #getMaxValue()} - {@link #getMinValue()} + 1, or
+	 *            to the number of selectable values if a step is set via
+	 *            {@link #setStep(int)}.
+	 */
+	public void setMinValue( final int minValue ) {
+		if ( minValue < 0 ) {
+			throw new IllegalArgumentException( "minValue must be >= 0" );
+		}
+		this.setLongMinValue( minValue );
+	}
+
+	/**
+	 * Sets whether numbers are drawn from digit glyphs rendered once per text
+	 * size and locale instead of as text. This avoids text layout while
+	 * scrolling through plain numbers and is ignored while a {@link Formatter}
+	 * or displayed values are set. Labels of an {@link AppendingFormatter}
+	 * with other characters than digits, the minus sign and the grouping
+	 * separator are drawn as text.
+	 * 
+	 * @param numericGlyphRendering
+	 *            Whether to draw numbers from digit glyphs.
+	 */
+	public void setNumericGlyphRendering( final boolean numericGlyphRendering ) {
+		if ( numericGlyphRendering == this.mNumericGlyphRendering ) {
+			return;
+		}
+		this.mNumericGlyphRendering = numericGlyphRendering;
+		if ( !numericGlyphRendering && ( this.mDigitGlyphAtlas != null ) ) {
+			this.mDigitGlyphAtlas.recycle();
+			this.mDigitGlyphAtlas = null;
+		}
+		this.invalidate();
+	}
+
 	/**
 	 * Sets the speed at which the numbers be incremented and decremented when
 	 * the up and down buttons are long pressed respectively.
@@ -2847,6 +5043,122 @@ public class NumberPicker extends LinearLayout {
 		this.mOnValueChangeListener = onValueChangedListener;
 	}
 
+	/**
+	 * Sets the listener to be notified of the value a fling will land on when
+	 * it starts.
+	 * 
+	 * @param onValuePredictedListener
+	 *            The listener.
+	 */
+	public void setOnValuePredictedListener(
+			final OnValuePredictedListener onValuePredictedListener ) {
+		this.mOnValuePredictedListener = onValuePredictedListener;
+	}
+
+	/**
+	 * Sets the source of the values to be displayed, which loads their
+	 * labels a page at a time. Pages are loaded on the label executor around
+	 * the values shown by the selector wheel, which draws the placeholder for
+	 * labels whose page is not loaded yet. Only the <code>maxPages</code>
+	 * most recently used pages are kept in memory. The max width grows with
+	 * the widest label loaded so far. Replaces any displayed values set as an
+	 * array, table or provider. Values whose index does not fit in an int
+	 * cannot be loaded from the source and show their number instead.
+	 * 
+	 * @param source
+	 *            The paged label source, <code>null</code> for none.
+	 * @param pageSize
+	 *            The number of labels in a page, ignored if
+	 *            <code>source</code> is <code>null</code>.
+	 * @param maxPages
+	 *            The max number of pages kept in memory, at least 4, ignored
+	 *            if <code>source</code> is <code>null</code>.
+	 * @see #setLabelExecutor(Executor)
+	 * @see #setLabelPlaceholder(String)
+	 */
+	public void setPagedLabelSource( final PagedLabelSource source,
+			final int pageSize, final int maxPages ) {
+		if ( ( source != null ) && ( pageSize < 1 ) ) {
+			throw new IllegalArgumentException( "pageSize must be >= 1" );
+		}
+		if ( ( source != null )
+				&& ( maxPages < NumberPicker.MIN_LABEL_PAGE_COUNT ) ) {
+			throw new IllegalArgumentException( "maxPages must be >= "
+					+ NumberPicker.MIN_LABEL_PAGE_COUNT );
+		}
+		this.mPagedLabelSource = source;
+		this.mLabelPager =
+				( source != null ) ? new LabelPager( pageSize, maxPages ) : null;
+		this.mLabelPageMaxWidth = 0;
+		this.mDisplayedValues = null;
+		this.mDisplayedValueTable = null;
+		this.mValueLabelProvider = null;
+		this.invalidateFormattedLabels();
+		this.updateInputTextView();
+		this.initializeSelectorWheelIndices();
+		this.tryComputeMaxWidth();
+	}
+
+	/**
+	 * Sets the distance between two consecutive selectable values. The
+	 * selectable values are then the min value and every <code>step</code>th
+	 * value above it up to the max value. The selector wheel, the buttons and
+	 * the keys move by one step, and typed values between two steps are moved
+	 * down to the closest step. Only the labels of selectable values are
+	 * formatted, so stepped ranges need no displayed values.
+	 * <p>
+	 * Note: Displayed values set as an array, a table or a provider hold one
+	 * label per selectable value, the first one being the label of the min
+	 * value.
+	 * </p>
+	 * 
+	 * @param step
+	 *            The step, 1 by default.
+	 */
+	public void setStep( final int step ) {
+		if ( step < 1 ) {
+			throw new IllegalArgumentException( "step must be >= 1" );
+		}
+		if ( step == this.mStep ) {
+			return;
+		}
+		final long[] disabledValues = this.getDisabledValues();
+		this.mStep = step;
+		this.onPositionsChanged( disabledValues );
+		this.mValue = this.alignToStep( this.mValue );
+		this.setWrapSelectorWheel( this.hasPosition( this.mSelectorIndices.length + 1 ) );
+		this.initializeSelectorWheelIndices();
+		this.updateInputTextView();
+		this.tryComputeMaxWidth();
+		this.invalidate();
+	}
+
+	/**
+	 * Sets whether the labels produced by the {@link Formatter} are cached in
+	 * a process wide pool shared by all pickers using the same formatter
+	 * instance in the same locale, instead of a cache owned by this picker.
+	 * This avoids formatting the same labels again in screens showing many
+	 * pickers with identical formatting. The pool is bounded and released
+	 * when the system asks the application to trim its memory.
+	 * <p>
+	 * Note: With the pool enabled the label cache counts cover all pickers
+	 * sharing it.
+	 * </p>
+	 * 
+	 * @param useSharedLabelPool
+	 *            Whether to use the shared label pool.
+	 * @see #trimSharedLabelPool(int)
+	 */
+	public void setUseSharedLabelPool( final boolean useSharedLabelPool ) {
+		if ( useSharedLabelPool == this.mUseSharedLabelPool ) {
+			return;
+		}
+		this.mUseSharedLabelPool = useSharedLabelPool;
+		this.invalidateFormattedLabels();
+		this.initializeSelectorWheelIndices();
+		this.invalidate();
+	}
+
 	/**
 	 * Set the current value for the number picker.
 	 * <p>
@@ -2888,18 +5200,19 @@ public class NumberPicker extends LinearLayout {
 	 * @param notifyChange
 	 *            Whether to notify if the current value changed.
 	 */
-	private void setValueInternal( int current, final boolean notifyChange ) {
+	private void setValueInternal( long current, final boolean notifyChange ) {
 		if ( this.mValue == current ) {
 			return;
 		}
 		// Wrap around the values if we go past the start or end
 		if ( this.mWrapSelectorWheel ) {
-			current = this.getWrappedSelectorIndex( current );
+			current = WheelMath.wrap( current, this.mMinValue, this.mMaxValue );
 		} else {
 			current = Math.max( current, this.mMinValue );
 			current = Math.min( current, this.mMaxValue );
 		}
-		final int previous = this.mValue;
+		current = this.alignToStep( current );
+		final long previous = this.mValue;
 		this.mValue = current;
 		this.updateInputTextView();
 		if ( notifyChange ) {
@@ -2909,6 +5222,72 @@ public class NumberPicker extends LinearLayout {
 		this.invalidate();
 	}
 
+	/**
+	 * Sets whether the selectable value <code>value</code> may be selected,
+	 * for example to block full slots of a booking screen. Disabled values are
+	 * drawn dimmed, scrolled past by the buttons and keys, and the wheel does
+	 * not settle on them after a fling or drag. The current value stays
+	 * selected if it is disabled. The disabled values are kept in a bit set
+	 * by position. When the min value, the step or the allowed values change
+	 * they stay disabled by value, unless they are no longer selectable.
+	 * 
+	 * @param value
+	 *            A selectable value at most {@link Integer#MAX_VALUE} steps
+	 *            above the min value.
+	 * @param enabled
+	 *            Whether the value may be selected.
+	 */
+	public void setValueEnabled( final long value, final boolean enabled ) {
+		if ( ( value < this.mMinValue ) || ( value > this.mMaxValue )
+				|| ( this.alignToStep( value ) != value ) ) {
+			throw new IllegalArgumentException( "value must be selectable" );
+		}
+		final long position = this.toPosition( value );
+		if ( ( position < 0 ) || ( position > Integer.MAX_VALUE ) ) {
+			throw new IllegalArgumentException(
+					"value must be at most Integer.MAX_VALUE steps above the min value" );
+		}
+		if ( this.mDisabledPositions == null ) {
+			if ( enabled ) {
+				return;
+			}
+			this.mDisabledPositions = new BitSet();
+		}
+		this.mDisabledPositions.set( (int) position, !enabled );
+		this.invalidate();
+	}
+
+	/**
+	 * Sets the provider of the values to be displayed, which is asked for
+	 * labels only when they are needed. The most recently used labels are
+	 * kept in the bounded label cache. Compared to
+	 * {@link #setDisplayedValues(String[])} no label has to be created up
+	 * front. The max width is taken from
+	 * {@link MeasuredValueLabelProvider#getMaxLabelWidth(Paint)} if the
+	 * provider implements it and estimated from the labels of the min and max
+	 * values otherwise. Replaces any displayed values set as an array, table
+	 * or paged source.
+	 * 
+	 * @param provider
+	 *            The value label provider.
+	 */
+	public void setValueLabelProvider( final ValueLabelProvider provider ) {
+		if ( ( this.mValueLabelProvider != provider )
+				|| ( this.mDisplayedValues != null )
+				|| ( this.mDisplayedValueTable != null )
+				|| ( this.mPagedLabelSource != null ) ) {
+			this.mValueLabelProvider = provider;
+			this.mDisplayedValues = null;
+			this.mDisplayedValueTable = null;
+			this.mPagedLabelSource = null;
+			this.mLabelPager = null;
+			this.invalidateFormattedLabels();
+			this.updateInputTextView();
+			this.initializeSelectorWheelIndices();
+			this.tryComputeMaxWidth();
+		}
+	}
+
 	/**
 	 * Sets whether the selector wheel shown during flinging/scrolling should
 	 * wrap around the {@link NumberPicker#getMinValue()} and
@@ -2929,13 +5308,49 @@ public class NumberPicker extends LinearLayout {
 	 */
 	public void setWrapSelectorWheel( final boolean wrapSelectorWheel ) {
 		final boolean wrappingAllowed =
-				( this.mMaxValue - this.mMinValue ) >= this.mSelectorIndices.length;
+				this.hasPosition( this.mSelectorIndices.length );
 		if ( ( !wrapSelectorWheel || wrappingAllowed )
 				&& ( wrapSelectorWheel != this.mWrapSelectorWheel ) ) {
 			this.mWrapSelectorWheel = wrapSelectorWheel;
 		}
 	}
 
+	/**
+	 * Moves the state kept by position after the range, whose last position
+	 * was <code>lastPosition</code>, was extended by <code>shift</code>
+	 * positions below the min value and possibly some above the max value.
+	 */
+	private void shiftPositions( final long shift, final long lastPosition ) {
+		if ( shift == 0 ) {
+			if ( ( this.mLabelPager != null )
+					&& ( this.getLastPosition() != lastPosition )
+					&& WheelMath.lessUnsigned( lastPosition, Integer.MAX_VALUE )
+					&& ( ( ( lastPosition + 1 ) % this.mLabelPager.getPageSize() ) != 0 ) ) {
+				// The last page holds fewer labels than a page may now.
+				this.mLabelPager.remove( this.mLabelPager.getPage( lastPosition ) );
+			}
+			return;
+		}
+		if ( this.mValueLabelProvider != null ) {
+			// Provided labels are looked up by index.
+			this.mPrivateLabelCache.clear();
+			this.releaseLandingLabels();
+		}
+		if ( this.mLabelPager != null ) {
+			this.mLabelPager.clear();
+		}
+		final BitSet disabledPositions = this.mDisabledPositions;
+		if ( disabledPositions != null ) {
+			this.mDisabledPositions = new BitSet();
+			for ( int i = disabledPositions.nextSetBit( 0 ); i >= 0; i =
+					disabledPositions.nextSetBit( i + 1 ) ) {
+				if ( ( i + shift ) <= Integer.MAX_VALUE ) {
+					this.mDisabledPositions.set( (int) ( i + shift ) );
+				}
+			}
+		}
+	}
+
 	/**
 	 * Shows the soft input for its input text.
 	 */
@@ -2952,6 +5367,213 @@ public class NumberPicker extends LinearLayout {
 		}
 	}
 
+	/**
+	 * Makes the fling just started with <code>velocityY</code> land with an
+	 * item in the middle of the selector wheel, so that it decelerates into
+	 * place in one animation instead of stopping at an arbitrary offset and
+	 * being adjusted by a second scroll. The item is the one closest to where
+	 * the fling would rest that still lies ahead in the direction of the
+	 * fling, stopping at the ends of the range unless the selector wheel
+	 * wraps and moving on past disabled values. The fling is left as is if no
+	 * such item can be reached. Otherwise the labels around the value it
+	 * lands on are prefetched and the value is predicted to the listener.
+	 */
+	private void snapFling( final int velocityY ) {
+		final int elementHeight = this.mSelectorElementHeight;
+		if ( ( velocityY == 0 ) || ( elementHeight <= 0 ) ) {
+			return;
+		}
+		final Scroller scroller = this.mFlingScroller;
+		final int direction = ( velocityY > 0 ) ? 1 : -1;
+		final int offset = this.mCurrentScrollOffset - this.mInitialScrollOffset;
+		final long distance = (long) scroller.getFinalY() - scroller.getStartY();
+		// Scrolling down by an element shows the previous value.
+		long items = Math.round( (double) ( offset + distance ) / elementHeight );
+		if ( ( ( ( items * elementHeight ) - offset ) * direction ) <= 0 ) {
+			items += direction;
+		}
+		final long middle =
+				this.mSelectorIndices[ NumberPicker.SELECTOR_MIDDLE_ITEM_INDEX ];
+		if ( !this.mWrapSelectorWheel && !this.canStep( middle, -items ) ) {
+			final long position = this.toPosition( middle );
+			items = ( items > 0 ) ? position : position - this.getLastPosition();
+			if ( items == 0 ) {
+				return;
+			}
+		}
+		final long target = this.stepValue( middle, -items );
+		if ( !this.isValueEnabled( target ) ) {
+			final long steps =
+					this.stepsToEnabled( target, -direction, Long.MAX_VALUE );
+			if ( steps == 0 ) {
+				return;
+			}
+			items += steps * direction;
+		}
+		final long finalY =
+				scroller.getStartY() + ( items * elementHeight ) - offset;
+		if ( ( finalY < 0 ) || ( finalY > Integer.MAX_VALUE ) ) {
+			return;
+		}
+		scroller.snapFlingY( (int) finalY );
+		final long landing = this.stepValue( middle, -items );
+		this.prefetchLandingLabels( landing );
+		if ( this.mOnValuePredictedListener != null ) {
+			this.mOnValuePredictedListener.onValuePredicted( this, landing );
+		}
+	}
+
+	/**
+	 * Returns the selectable value <code>value</code> moved by
+	 * <code>delta</code> steps within the range, wrapping around past either
+	 * end if the selector wheel wraps and stopping at the first and last
+	 * selectable value otherwise.
+	 */
+	private long stepValue( final long value, final long delta ) {
+		final long position = this.toPosition( value );
+		final long lastPosition = this.getLastPosition();
+		if ( this.mWrapSelectorWheel ) {
+			return this.toValue( WheelMath.add( position, delta, 0, lastPosition ) );
+		}
+		return this.toValue( WheelMath.addClamped( position, delta, 0,
+				lastPosition ) );
+	}
+
+	/**
+	 * Returns the number of steps from the selectable value <code>value</code>
+	 * to the closest enabled value in <code>direction</code>, or 0 if there
+	 * is none within <code>limit</code> steps. Upwards the disabled bit set is
+	 * searched with {@link BitSet#nextClearBit(int)}, a word at a time.
+	 * Downwards it is scanned one position at a time, so callers bound the
+	 * scan where they can.
+	 */
+	private long stepsToEnabled( final long value, final int direction,
+			final long limit ) {
+		final long position = this.toPosition( value );
+		final long lastPosition = this.getLastPosition();
+		long steps = 0;
+		if ( direction > 0 ) {
+			if ( position != lastPosition ) {
+				final long next = this.nextEnabledPosition( position + 1 );
+				if ( !WheelMath.lessUnsigned( lastPosition, next ) ) {
+					steps = next - position;
+				}
+			}
+			if ( ( steps == 0 ) && this.mWrapSelectorWheel ) {
+				final long next = this.nextEnabledPosition( 0 );
+				if ( WheelMath.lessUnsigned( next, position ) ) {
+					steps = ( lastPosition - position ) + 1 + next;
+				}
+			}
+			return WheelMath.lessUnsigned( limit, steps ) ? 0 : steps;
+		}
+		long current = position;
+		while ( WheelMath.lessUnsigned( steps, limit ) ) {
+			if ( current != 0 ) {
+				current--;
+			} else if ( this.mWrapSelectorWheel ) {
+				current = lastPosition;
+			} else {
+				return 0;
+			}
+			steps++;
+			if ( current == position ) {
+				return 0;
+			}
+			if ( this.isPositionEnabled( current ) ) {
+				return steps;
+			}
+		}
+		return 0;
+	}
+
+	/**
+	 * Stores the <code>labels</code> loaded by <code>command</code> unless
+	 * they became invalid while it was running, and grows the max width to
+	 * fit them.
+	 * 
+	 * @return Whether the labels were stored.
+	 */
+	private boolean storeLabelPage( final LoadLabelPageCommand command,
+			final String[] labels ) {
+		// A partial page that grew since it was requested is loaded again.
+		if ( ( command.mCount != this.getLabelPageLength( command.mFrom ) )
+				|| !this.mLabelPager.put( command.mGeneration, command.mPage,
+						labels ) ) {
+			return false;
+		}
+		float maxWidth = this.mLabelPageMaxWidth;
+		for ( final String label : labels ) {
+			if ( label != null ) {
+				maxWidth =
+						Math.max( maxWidth, this.mSelectorWheelPaint.measureText( label ) );
+			}
+		}
+		if ( maxWidth > this.mLabelPageMaxWidth ) {
+			this.mLabelPageMaxWidth = maxWidth;
+			this.tryComputeMaxWidth();
+		}
+		return true;
+	}
+
+	/**
+	 * Returns <code>text</code> without the prefix and suffix of the label
+	 * template it starts and ends with, ignoring case, or <code>text</code>
+	 * if no template is used.
+	 */
+	private String stripLabelTemplate( final String text ) {
+		if ( !this.usesLabelTemplate() ) {
+			return text;
+		}
+		final String prefix = this.mLabelPrefix;
+		final String suffix = this.mLabelSuffix;
+		int start = 0;
+		int end = text.length();
+		if ( text.regionMatches( true, 0, prefix, 0, prefix.length() ) ) {
+			start = prefix.length();
+		}
+		if ( ( ( end - start ) >= suffix.length() )
+				&& text.regionMatches( true, end - suffix.length(), suffix, 0,
+						suffix.length() ) ) {
+			end -= suffix.length();
+		}
+		return text.substring( start, end );
+	}
+
+	/**
+	 * Returns the number of steps from the min value to the selectable value
+	 * <code>value</code>, which is its index among the allowed values within
+	 * the range if any are set.
+	 */
+	private long toPosition( final long value ) {
+		if ( this.usesAllowedValues() ) {
+			return Arrays.binarySearch( this.mAllowedValues, this.mAllowedFrom,
+					this.mAllowedTo + 1, (int) value ) - this.mAllowedFrom;
+		}
+		return WheelMath.divideUnsigned( value - this.mMinValue, this.mStep );
+	}
+
+	/**
+	 * Returns the scroll distance of <code>steps</code> selector elements,
+	 * saturated to half of {@link Integer#MAX_VALUE}.
+	 */
+	private int toScrollDistance( final long steps ) {
+		return (int) Math.min( steps * this.mSelectorElementHeight,
+				Integer.MAX_VALUE / 2 );
+	}
+
+	/**
+	 * Returns the selectable value <code>position</code> steps above the min
+	 * value, or at <code>position</code> among the allowed values within the
+	 * range if any are set.
+	 */
+	private long toValue( final long position ) {
+		if ( this.usesAllowedValues() ) {
+			return this.mAllowedValues[ this.mAllowedFrom + (int) position ];
+		}
+		return this.mMinValue + ( position * this.mStep );
+	}
+
 	/**
 	 * Computes the max width if no such specified as an attribute.
 	 */
@@ -2960,22 +5582,39 @@ public class NumberPicker extends LinearLayout {
 			return;
 		}
 		int maxTextWidth = 0;
-		if ( this.mDisplayedValues == null ) {
+		if ( this.mPagedLabelSource != null ) {
+			maxTextWidth = (int) this.mLabelPageMaxWidth;
+		} else if ( this.mValueLabelProvider instanceof MeasuredValueLabelProvider ) {
+			maxTextWidth =
+					(int) ( (MeasuredValueLabelProvider) this.mValueLabelProvider ).getMaxLabelWidth( this.mSelectorWheelPaint );
+		} else if ( this.mValueLabelProvider != null ) {
+			// Estimate from the bounds rather than asking for every label.
+			maxTextWidth =
+					(int) Math.max(
+							this.mSelectorWheelPaint.measureText( this.getLabel( this.mMinValue ) ),
+							this.mSelectorWheelPaint.measureText( this.getLabel( this.mMaxValue ) ) );
+		} else if ( this.mDisplayedValueTable != null ) {
+			maxTextWidth =
+					(int) this.mDisplayedValueTable.measureMaxWidth( this.mSelectorWheelPaint );
+		} else if ( this.mDisplayedValues == null ) {
 			float maxDigitWidth = 0;
 			for ( int i = 0; i <= 9; i++ ) {
 				final float digitWidth =
-						this.mSelectorWheelPaint.measureText( NumberPicker.formatNumberWithLocale( i ) );
+						this.mSelectorWheelPaint.measureText( NumberPicker.formatNumberWithLocale( i, 0 ) );
 				if ( digitWidth > maxDigitWidth ) {
 					maxDigitWidth = digitWidth;
 				}
 			}
-			int numberOfDigits = 0;
-			int current = this.mMaxValue;
-			while ( current > 0 ) {
-				numberOfDigits++;
-				current = current / 10;
-			}
+			final DigitFormatter digits = NumberPicker.sDigitFormatter;
+			final int numberOfDigits =
+					Math.max( digits.render( this.mMinValue, 0, this.mDecimalScale ),
+							digits.render( this.mMaxValue, 0, this.mDecimalScale ) );
 			maxTextWidth = (int) ( numberOfDigits * maxDigitWidth );
+			if ( this.usesLabelTemplate() ) {
+				maxTextWidth +=
+						(int) Math.ceil( this.mLabelPrefixWidth
+								+ this.mLabelSuffixWidth );
+			}
 		} else {
 			final int valueCount = this.mDisplayedValues.length;
 			for ( int i = 0; i < valueCount; i++ ) {
@@ -2999,6 +5638,22 @@ public class NumberPicker extends LinearLayout {
 		}
 	}
 
+	/**
+	 * Finds the allowed values within the range.
+	 */
+	private void updateAllowedRange() {
+		if ( this.mAllowedValues == null ) {
+			return;
+		}
+		final int[] allowedValues = this.mAllowedValues;
+		final int below =
+				NumberPicker.floorIndex( allowedValues, this.mMinValue );
+		this.mAllowedFrom =
+				( ( below >= 0 ) && ( allowedValues[ below ] == this.mMinValue ) ) ? below
+						: below + 1;
+		this.mAllowedTo = NumberPicker.floorIndex( allowedValues, this.mMaxValue );
+	}
+
 	/**
 	 * Updates the view of this NumberPicker. If displayValues were specified in
 	 * the string corresponding to the index specified by the current value will
@@ -3013,18 +5668,62 @@ public class NumberPicker extends LinearLayout {
 		 * find the correct value in the displayed values for the current
 		 * number.
 		 */
-		final String text =
-				( this.mDisplayedValues == null ) ? this.formatNumber( this.mValue )
-						: this.mDisplayedValues[ this.mValue - this.mMinValue ];
+		// A label still loading is set once its page is loaded.
+		final String text = this.getLabel( this.mValue, false );
 		if ( !TextUtils.isEmpty( text )
 				&& !text.equals( this.mInputText.getText().toString() ) ) {
-			this.mInputText.setText( text );
+			if ( this.usesLabelTemplate() ) {
+				// The input filter would strip the affixes of the template.
+				final InputFilter[] filters = this.mInputText.getFilters();
+				this.mInputText.setFilters( NumberPicker.NO_INPUT_FILTERS );
+				this.mInputText.setText( text );
+				this.mInputText.setFilters( filters );
+			} else {
+				this.mInputText.setText( text );
+			}
 			return true;
 		}
 
 		return false;
 	}
 
+	/**
+	 * Refreshes the locale dependent formatting state and, if the locale did
+	 * change since the labels were built, the labels of this picker.
+	 */
+	private void updateLocale( final Locale locale ) {
+		if ( !NumberPicker.onLocaleChanged( locale )
+				&& locale.equals( this.mLabelLocale ) ) {
+			return;
+		}
+		this.mLabelLocale = locale;
+		this.invalidateFormattedLabels();
+		this.initializeSelectorWheelIndices();
+		this.updateInputTextView();
+		this.tryComputeMaxWidth();
+		this.invalidate();
+	}
+
+	/**
+	 * @return Whether the selectable values are the allowed values, which is
+	 *         the case if they are set and some are within the range.
+	 */
+	private boolean usesAllowedValues() {
+		return ( this.mAllowedValues != null )
+				&& ( this.mAllowedFrom <= this.mAllowedTo );
+	}
+
+	/**
+	 * @return Whether plain numbers are shown between the affixes of a label
+	 *         template.
+	 */
+	private boolean usesLabelTemplate() {
+		return ( ( this.mLabelPrefix.length() > 0 ) || ( this.mLabelSuffix.length() > 0 ) )
+				&& ( this.mFormatter == null )
+				&& ( this.mAppendingFormatter == null )
+				&& !this.hasDisplayedValues();
+	}
+
 	private void validateInputTextView( final View v ) {
 		final String str = String.valueOf( ( (TextView) v ).getText() );
 		if ( TextUtils.isEmpty( str ) ) {
@@ -3032,7 +5731,7 @@ public class NumberPicker extends LinearLayout {
 			this.updateInputTextView();
 		} else {
 			// Check the new value and ensure it's in range
-			final int current = this.getSelectedPos( str.toString() );
+			final long current = this.getSelectedPos( str.toString() );
 			this.setValueInternal( current, true );
 		}
 	}
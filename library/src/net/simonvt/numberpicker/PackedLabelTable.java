@@ -0,0 +1,183 @@
+/*
+ * Copyright (C) 2008 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.simonvt.numberpicker;
+
+import android.graphics.Paint;
+
+/**
+ * An immutable table of labels stored as one packed char array with an
+ * offset index, along with a lower case copy used for matching typed input.
+ * Compared to a <code>String[]</code> this saves an object per label, which
+ * adds up for tables with tens of thousands of labels, and lets lookups
+ * compare characters in place instead of lower casing every label.
+ *
+ * @see NumberPicker#setDisplayedValueTable(LabelTable)
+ */
+public final class PackedLabelTable implements LabelTable {
+
+	/**
+	 * The characters of all labels.
+	 */
+	private final char[] mChars;
+
+	/**
+	 * The characters of all labels in lower case.
+	 */
+	private final char[] mFoldedChars;
+
+	/**
+	 * The offset of each label in {@link #mChars}, followed by the total
+	 * length.
+	 */
+	private final int[] mOffsets;
+
+	/**
+	 * Creates a table of the given labels.
+	 *
+	 * @param labels
+	 *            The labels.
+	 */
+	public PackedLabelTable( final CharSequence[] labels ) {
+		final int[] offsets = new int[ labels.length + 1 ];
+		for ( int i = 0; i < labels.length; i++ ) {
+			offsets[ i + 1 ] = offsets[ i ] + labels[ i ].length();
+		}
+		final char[] chars = new char[ offsets[ labels.length ] ];
+		for ( int i = 0; i < labels.length; i++ ) {
+			final CharSequence label = labels[ i ];
+			final int offset = offsets[ i ];
+			for ( int j = 0; j < label.length(); j++ ) {
+				chars[ offset + j ] = label.charAt( j );
+			}
+		}
+		this.mChars = chars;
+		this.mOffsets = offsets;
+		this.mFoldedChars = PackedLabelTable.fold( chars );
+	}
+
+	/**
+	 * Creates a table of labels that are already packed. The label at
+	 * <code>i</code> spans from <code>offsets[i]</code> to
+	 * <code>offsets[i + 1]</code> in <code>chars</code>. The arrays are used
+	 * as is and must not be modified afterwards.
+	 *
+	 * @param chars
+	 *            The characters of all labels.
+	 * @param offsets
+	 *            The offset of each label followed by the end of the last.
+	 */
+	public PackedLabelTable( final char[] chars, final int[] offsets ) {
+		if ( ( offsets.length == 0 )
+				|| ( offsets[ offsets.length - 1 ] > chars.length ) ) {
+			throw new IllegalArgumentException(
+					"offsets must end within chars" );
+		}
+		this.mChars = chars;
+		this.mOffsets = offsets;
+		this.mFoldedChars = PackedLabelTable.fold( chars );
+	}
+
+	/**
+	 * Returns a lower case copy of <code>chars</code>.
+	 */
+	private static char[] fold( final char[] chars ) {
+		final char[] folded = new char[ chars.length ];
+		for ( int i = 0; i < chars.length; i++ ) {
+			folded[ i ] = Character.toLowerCase( chars[ i ] );
+		}
+		return folded;
+	}
+
+	@Override
+	public void getChars( final int index, final char[] dst, final int dstBegin ) {
+		final int offset = this.mOffsets[ index ];
+		System.arraycopy( this.mChars, offset, dst, dstBegin,
+				this.mOffsets[ index + 1 ] - offset );
+	}
+
+	@Override
+	public String getLabel( final int index ) {
+		final int offset = this.mOffsets[ index ];
+		return new String( this.mChars, offset, this.mOffsets[ index + 1 ]
+				- offset );
+	}
+
+	@Override
+	public int getLength( final int index ) {
+		return this.mOffsets[ index + 1 ] - this.mOffsets[ index ];
+	}
+
+	@Override
+	public int indexOfIgnoreCase( final CharSequence text ) {
+		final int count = this.size();
+		for ( int i = 0; i < count; i++ ) {
+			if ( ( this.getLength( i ) == text.length() )
+					&& this.regionMatchesIgnoreCase( i, text ) ) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	@Override
+	public int indexOfPrefixIgnoreCase( final CharSequence text ) {
+		final int count = this.size();
+		for ( int i = 0; i < count; i++ ) {
+			if ( ( this.getLength( i ) >= text.length() )
+					&& this.regionMatchesIgnoreCase( i, text ) ) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	@Override
+	public float measureMaxWidth( final Paint paint ) {
+		float maxWidth = 0;
+		final int count = this.size();
+		for ( int i = 0; i < count; i++ ) {
+			final float width =
+					paint.measureText( this.mChars, this.mOffsets[ i ],
+							this.getLength( i ) );
+			if ( width > maxWidth ) {
+				maxWidth = width;
+			}
+		}
+		return maxWidth;
+	}
+
+	/**
+	 * Returns whether the label at <code>index</code> starts with
+	 * <code>text</code> ignoring case.
+	 */
+	private boolean regionMatchesIgnoreCase( final int index,
+			final CharSequence text ) {
+		final char[] folded = this.mFoldedChars;
+		final int offset = this.mOffsets[ index ];
+		for ( int i = 0; i < text.length(); i++ ) {
+			if ( folded[ offset + i ] != Character.toLowerCase( text.charAt( i ) ) ) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	@Override
+	public int size() {
+		return this.mOffsets.length - 1;
+	}
+}
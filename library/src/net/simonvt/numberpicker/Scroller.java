@@ -30,8 +30,36 @@ import android.view.animation.Interpolator;
  * the scrolling animation should take.  Past this time, the scrolling is 
  * automatically moved to its final stage and computeScrollOffset()
  * will always return false to indicate that scrolling is over.
+ * <p>
+ * Time is read in nanoseconds from a {@link TimeSource}, so that positions
+ * can be computed for the exact time a frame is presented. Flings move as
+ * modelled by a {@link FlingPhysics}.
  */
 public class Scroller  {
+    /**
+     * Source of the time the scroll positions are computed for.
+     */
+    public interface TimeSource {
+        /**
+         * Returns the current animation time in nanoseconds. Only differences
+         * between two returned times are meaningful.
+         */
+        long nanoTime();
+    }
+
+    private static final long NANOS_PER_MILLI = 1000000L;
+
+    /**
+     * The default time source, reading the animation time of the current
+     * frame in whole milliseconds.
+     */
+    private static final TimeSource ANIMATION_TIME_SOURCE = new TimeSource() {
+        @Override
+        public long nanoTime() {
+            return AnimationUtils.currentAnimationTimeMillis() * NANOS_PER_MILLI;
+        }
+    };
+
     private int mMode;
 
     private int mStartX;
@@ -46,7 +74,7 @@ public class Scroller  {
 
     private int mCurrX;
     private int mCurrY;
-    private long mStartTime;
+    private long mStartTimeNanos;
     private int mDuration;
     private float mDurationReciprocal;
     private float mDeltaX;
@@ -54,6 +82,9 @@ public class Scroller  {
     private boolean mFinished;
     private Interpolator mInterpolator;
     private boolean mFlywheel;
+    private TimeSource mTimeSource = ANIMATION_TIME_SOURCE;
+    private FlingPhysics mFlingPhysics = FlingPhysics.SPLINE;
+    private float mDistance;
 
     private float mVelocity;
 
@@ -61,35 +92,10 @@ public class Scroller  {
     private static final int SCROLL_MODE = 0;
     private static final int FLING_MODE = 1;
 
-    private static float DECELERATION_RATE = (float) (Math.log(0.75) / Math.log(0.9));
-    private static float ALPHA = 800; // pixels / seconds
-    private static float START_TENSION = 0.4f; // Tension at start: (0.4 * total T, 1.0 * Distance)
-    private static float END_TENSION = 1.0f - START_TENSION;
-    private static final int NB_SAMPLES = 100;
-    private static final float[] SPLINE = new float[NB_SAMPLES + 1];
-
     private float mDeceleration;
     private final float mPpi;
 
     static {
-        float x_min = 0.0f;
-        for (int i = 0; i <= NB_SAMPLES; i++) {
-            final float t = (float) i / NB_SAMPLES;
-            float x_max = 1.0f;
-            float x, tx, coef;
-            while (true) {
-                x = x_min + (x_max - x_min) / 2.0f;
-                coef = 3.0f * x * (1.0f - x);
-                tx = coef * ((1.0f - x) * START_TENSION + x * END_TENSION) + x * x * x;
-                if (Math.abs(tx - t) < 1E-5) break;
-                if (tx > t) x_max = x;
-                else x_min = x;
-            }
-            final float d = coef + x * x * x;
-            SPLINE[i] = d;
-        }
-        SPLINE[NB_SAMPLES] = 1.0f;
-
         // This controls the viscous fluid effect (how much of it)
         sViscousFluidScale = 8.0f;
         // must be set to 1.0 (used in viscousFluid())
@@ -139,6 +145,35 @@ public class Scroller  {
     public final void setFriction(float friction) {
         mDeceleration = computeDeceleration(friction);
     }
+
+    /**
+     * Sets the source of the time the scroll positions are computed for.
+     * Set it before starting a scroll, times of different sources are not
+     * comparable.
+     *
+     * @param timeSource The time source, or null to use the animation time
+     *         of the current frame.
+     */
+    public final void setTimeSource(TimeSource timeSource) {
+        mTimeSource = timeSource != null ? timeSource : ANIMATION_TIME_SOURCE;
+    }
+
+    /**
+     * Sets the model of the motion of flings started after this call.
+     *
+     * @param flingPhysics The fling physics, or null for the default
+     *         {@link FlingPhysics#SPLINE}.
+     */
+    public final void setFlingPhysics(FlingPhysics flingPhysics) {
+        mFlingPhysics = flingPhysics != null ? flingPhysics : FlingPhysics.SPLINE;
+    }
+
+    /**
+     * Returns the model of the motion of flings.
+     */
+    public final FlingPhysics getFlingPhysics() {
+        return mFlingPhysics;
+    }
     
     private float computeDeceleration(float friction) {
         return SensorManager.GRAVITY_EARTH   // g (m/s^2)
@@ -196,11 +231,16 @@ public class Scroller  {
     /**
      * Returns the current velocity.
      *
-     * @return The original velocity less the deceleration. Result may be
-     * negative.
+     * @return The original velocity less the deceleration, or the velocity
+     * of the fling curve for flings with physics other than
+     * {@link FlingPhysics#SPLINE}. Result may be negative.
      */
     public float getCurrVelocity() {
-        return mVelocity - mDeceleration * timePassed() / 2000.0f;
+        final float timePassed = timePassedMillis(mTimeSource.nanoTime());
+        if (mMode == FLING_MODE && mFlingPhysics != FlingPhysics.SPLINE) {
+            return mFlingPhysics.getVelocity(mVelocity, mDistance, timePassed);
+        }
+        return mVelocity - mDeceleration * timePassed / 2000.0f;
     }
 
     /**
@@ -245,11 +285,22 @@ public class Scroller  {
      * new location.
      */ 
     public boolean computeScrollOffset() {
+        return computeScrollOffset(mTimeSource.nanoTime());
+    }
+
+    /**
+     * Computes the location at <code>timeNanos</code>, typically the time the
+     * frame being drawn is presented, as read from the time source. If it
+     * returns true, the animation is not yet finished.
+     *
+     * @param timeNanos The time in nanoseconds.
+     */
+    public boolean computeScrollOffset(long timeNanos) {
         if (mFinished) {
             return false;
         }
 
-        int timePassed = (int)(AnimationUtils.currentAnimationTimeMillis() - mStartTime);
+        final float timePassed = timePassedMillis(timeNanos);
     
         if (timePassed < mDuration) {
             switch (mMode) {
@@ -265,13 +316,8 @@ public class Scroller  {
                 mCurrY = mStartY + Math.round(x * mDeltaY);
                 break;
             case FLING_MODE:
-                final float t = (float) timePassed / mDuration;
-                final int index = (int) (NB_SAMPLES * t);
-                final float t_inf = (float) index / NB_SAMPLES;
-                final float t_sup = (float) (index + 1) / NB_SAMPLES;
-                final float d_inf = SPLINE[index];
-                final float d_sup = SPLINE[index + 1];
-                final float distanceCoef = d_inf + (t - t_inf) / (t_sup - t_inf) * (d_sup - d_inf);
+                final float distanceCoef = mDistance == 0 ? 1.0f
+                        : mFlingPhysics.getOffset(mVelocity, mDistance, timePassed) / mDistance;
                 
                 mCurrX = mStartX + Math.round(distanceCoef * (mFinalX - mStartX));
                 // Pin to mMinX <= mCurrX <= mMaxX
@@ -333,7 +379,7 @@ public class Scroller  {
         mMode = SCROLL_MODE;
         mFinished = false;
         mDuration = duration;
-        mStartTime = AnimationUtils.currentAnimationTimeMillis();
+        mStartTimeNanos = mTimeSource.nanoTime();
         mStartX = startX;
         mStartY = startY;
         mFinalX = startX + dx;
@@ -390,17 +436,16 @@ public class Scroller  {
         float velocity = FloatMath.sqrt(velocityX * velocityX + velocityY * velocityY);
      
         mVelocity = velocity;
-        final double l = Math.log(START_TENSION * velocity / ALPHA);
-        mDuration = (int) (1000.0 * Math.exp(l / (DECELERATION_RATE - 1.0)));
-        mStartTime = AnimationUtils.currentAnimationTimeMillis();
+        mDistance = mFlingPhysics.getDistance(velocity);
+        mDuration = mFlingPhysics.getDuration(velocity, mDistance);
+        mStartTimeNanos = mTimeSource.nanoTime();
         mStartX = startX;
         mStartY = startY;
 
         float coeffX = velocity == 0 ? 1.0f : velocityX / velocity;
         float coeffY = velocity == 0 ? 1.0f : velocityY / velocity;
 
-        int totalDistance =
-                (int) (ALPHA * Math.exp(DECELERATION_RATE / (DECELERATION_RATE - 1.0) * l));
+        int totalDistance = (int) mDistance;
         
         mMinX = minX;
         mMaxX = maxX;
@@ -466,7 +511,17 @@ public class Scroller  {
      * @return The elapsed time in milliseconds.
      */
     public int timePassed() {
-        return (int)(AnimationUtils.currentAnimationTimeMillis() - mStartTime);
+        return (int) ((mTimeSource.nanoTime() - mStartTimeNanos) / NANOS_PER_MILLI);
+    }
+
+    /**
+     * Returns the time elapsed from the beginning of the scrolling to
+     * <code>timeNanos</code> in fractional milliseconds, so that consecutive
+     * frames advance by their actual interval. Times before the beginning,
+     * as for a frame started before the scroll, count as no time passed.
+     */
+    private float timePassedMillis(long timeNanos) {
+        return Math.max(0, timeNanos - mStartTimeNanos) / (float) NANOS_PER_MILLI;
     }
 
     /**
@@ -495,6 +550,32 @@ public class Scroller  {
         mFinished = false;
     }
 
+    /**
+     * Makes the fling just started land on a final position (Y) close to
+     * where it would come to rest, such as an item boundary. Unlike
+     * {@link #setFinalY(int)} the fling is retimed by its
+     * {@link FlingPhysics} so that it decelerates into the new position in
+     * one motion. The final position (X) is scaled alike to keep the
+     * direction of the fling. Other scrolls just have their final position
+     * set.
+     *
+     * @param newY The new Y offset as an absolute distance from the origin,
+     *         past the start in the direction of the fling.
+     */
+    public void snapFlingY(int newY) {
+        final int deltaY = mFinalY - mStartY;
+        if (mMode != FLING_MODE || deltaY == 0) {
+            setFinalY(newY);
+            return;
+        }
+        final float ratio = (float) (newY - mStartY) / deltaY;
+        mDistance *= ratio;
+        mDuration = mFlingPhysics.getDuration(mVelocity, mDistance);
+        mFinalX = mStartX + Math.round((mFinalX - mStartX) * ratio);
+        mFinalY = newY;
+        mFinished = false;
+    }
+
     /**
      * @hide
      */
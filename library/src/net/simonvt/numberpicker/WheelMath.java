@@ -0,0 +1,165 @@
+/*
+ * Copyright (C) 2008 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.simonvt.numberpicker;
+
+/**
+ * Overflow safe arithmetic on values of a wheel ranging from a min to a max
+ * value, which may span the whole long range. Distances between values are
+ * computed as unsigned longs, since <code>max - min</code> of such a range
+ * does not fit in a signed one.
+ */
+final class WheelMath {
+
+	/**
+	 * Returns <code>value</code> moved by <code>delta</code> within
+	 * <code>min</code> to <code>max</code>, wrapping around past either end.
+	 * <code>value</code> must be within the range.
+	 */
+	static long add( final long value, final long delta, final long min,
+			final long max ) {
+		final long count = ( max - min ) + 1;
+		if ( count == 0 ) {
+			// The range spans all longs, which wrap the same way.
+			return value + delta;
+		}
+		final long offset = value - min;
+		final long step =
+				WheelMath.remainderUnsigned( ( delta >= 0 ) ? delta : -delta,
+						count );
+		if ( delta >= 0 ) {
+			final long room = count - offset;
+			return WheelMath.lessUnsigned( step, room ) ? value + step : ( min + step )
+					- room;
+		}
+		return WheelMath.lessUnsigned( offset, step ) ? ( max - ( step - offset ) ) + 1
+				: value - step;
+	}
+
+	/**
+	 * Returns <code>value</code> moved by <code>delta</code>, stopping at
+	 * <code>min</code> and <code>max</code>. <code>value</code> must be
+	 * within the range.
+	 */
+	static long addClamped( final long value, final long delta,
+			final long min, final long max ) {
+		if ( delta >= 0 ) {
+			return WheelMath.lessUnsigned( max - value, delta ) ? max : value
+					+ delta;
+		}
+		return WheelMath.lessUnsigned( value - min, -delta ) ? min : value
+				+ delta;
+	}
+
+	/**
+	 * Returns whether <code>value</code> moved by <code>delta</code> is still
+	 * within <code>min</code> to <code>max</code>. <code>value</code> must be
+	 * within the range.
+	 */
+	static boolean canAdd( final long value, final long delta, final long min,
+			final long max ) {
+		if ( delta >= 0 ) {
+			return !WheelMath.lessUnsigned( max - value, delta );
+		}
+		return !WheelMath.lessUnsigned( value - min, -delta );
+	}
+
+	/**
+	 * Returns the quotient of the unsigned division of <code>dividend</code>
+	 * by the positive <code>divisor</code>.
+	 */
+	static long divideUnsigned( final long dividend, final long divisor ) {
+		if ( dividend >= 0 ) {
+			return dividend / divisor;
+		}
+		final long quotient = ( ( dividend >>> 1 ) / divisor ) << 1;
+		final long remainder = dividend - ( quotient * divisor );
+		return WheelMath.lessUnsigned( remainder, divisor ) ? quotient
+				: quotient + 1;
+	}
+
+	/**
+	 * Returns whether <code>a</code> is less than <code>b</code>, both taken
+	 * as unsigned.
+	 */
+	static boolean lessUnsigned( final long a, final long b ) {
+		return ( a + Long.MIN_VALUE ) < ( b + Long.MIN_VALUE );
+	}
+
+	/**
+	 * Returns the remainder of the unsigned division of <code>dividend</code>
+	 * by <code>divisor</code>.
+	 */
+	static long remainderUnsigned( final long dividend, final long divisor ) {
+		if ( divisor < 0 ) {
+			// The divisor is at least 2^63 so the quotient is 0 or 1.
+			return WheelMath.lessUnsigned( dividend, divisor ) ? dividend
+					: dividend - divisor;
+		}
+		if ( dividend >= 0 ) {
+			return dividend % divisor;
+		}
+		final long quotient = ( ( dividend >>> 1 ) / divisor ) << 1;
+		final long remainder = dividend - ( quotient * divisor );
+		return WheelMath.lessUnsigned( remainder, divisor ) ? remainder
+				: remainder - divisor;
+	}
+
+	/**
+	 * Returns the scroll position of <code>value</code> on a wheel starting
+	 * at <code>min</code> with items <code>itemHeight</code> pixels high,
+	 * saturated to {@link Integer#MAX_VALUE}.
+	 */
+	static int scrollOffset( final long value, final long min,
+			final int itemHeight ) {
+		final long offset = value - min;
+		if ( ( value < min ) || ( itemHeight <= 0 ) ) {
+			return 0;
+		}
+		if ( WheelMath.lessUnsigned( Integer.MAX_VALUE / itemHeight, offset ) ) {
+			return Integer.MAX_VALUE;
+		}
+		return (int) offset * itemHeight;
+	}
+
+	/**
+	 * Returns <code>value</code> clamped to the int range.
+	 */
+	static int toInt( final long value ) {
+		return (int) Math.max( Integer.MIN_VALUE,
+				Math.min( Integer.MAX_VALUE, value ) );
+	}
+
+	/**
+	 * Returns <code>value</code> brought within <code>min</code> to
+	 * <code>max</code> by wrapping it around the range as many times as
+	 * needed.
+	 */
+	static long wrap( final long value, final long min, final long max ) {
+		final long count = ( max - min ) + 1;
+		if ( value > max ) {
+			return min
+					+ WheelMath.remainderUnsigned( ( value - max ) - 1, count );
+		} else if ( value < min ) {
+			return max
+					- WheelMath.remainderUnsigned( ( min - value ) - 1, count );
+		}
+		return value;
+	}
+
+	private WheelMath() {
+	}
+}